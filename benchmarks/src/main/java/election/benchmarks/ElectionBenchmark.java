@@ -0,0 +1,77 @@
+package election.benchmarks;
+
+import election.Algorithm;
+import election.DiscreteEventSimulator;
+import election.Network;
+import election.NetworkSettings;
+import election.Topology;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+Full elections on generated rings, from the first ELECT action until the network is quiet again.
+Each measurement iteration is one election. The "rounds" and "messages" counters are summed over the measurement
+iterations, so divide them by the iteration count to get the values per election.
+Run with -prof gc to also get the bytes allocated per election (gc.alloc.rate.norm).
+*/
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ElectionBenchmark {
+
+    @Param({"des", "threaded"})
+    public String engine;
+
+    @Param({"1000", "4000"})
+    public int size;
+
+    @Param({"single", "concurrent", "failover"})
+    public String scenario;
+
+    @Param({"CHANG_ROBERTS", "HIRSCHBERG_SINCLAIR", "FRANKLIN"})
+    public Algorithm algorithm;
+
+    private Topology topology;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long rounds;
+        public long messages;
+    }
+
+    @Setup(Level.Invocation)
+    public void buildTopology(){
+        this.topology = Scenarios.election(this.scenario, this.size);
+    }
+
+    @Benchmark
+    public Object elect(Counters counters){
+
+        NetworkSettings settings = Scenarios.settings();
+        settings.setAlgorithm(this.algorithm);
+
+        if (this.engine.equals("des")){
+
+            DiscreteEventSimulator simulator = new DiscreteEventSimulator(this.topology, settings);
+            simulator.run();
+
+            counters.rounds += simulator.getRound();
+            counters.messages += simulator.getMessagesDelivered();
+
+            return simulator.getLeader();
+        }
+
+        Network network = new Network(this.topology, settings);
+        network.startNetwork();
+
+        counters.rounds += network.getRound();
+        counters.messages += network.getMessagesDelivered();
+
+        return network.getLeader();
+    }
+}
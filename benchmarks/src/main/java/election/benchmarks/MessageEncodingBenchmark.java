@@ -0,0 +1,45 @@
+package election.benchmarks;
+
+import election.MessageCreator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+One hop of an ELECT message: build it, then read its type and ids as the receiving node does.
+"text" is the String.format / split encoding that the packed long replaced.
+*/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageEncodingBenchmark {
+
+    private int initializerId = 3;
+
+    private int maximumId = 20;
+
+    @Benchmark
+    public void packed(Blackhole blackhole){
+
+        long message = MessageCreator.createElectMessage(this.initializerId, this.maximumId);
+
+        blackhole.consume(MessageCreator.getMessageType(message));
+        blackhole.consume(MessageCreator.getInitializerIdFromElectMessage(message));
+        blackhole.consume(MessageCreator.getMaximumIdFromElectMessage(message));
+    }
+
+    @Benchmark
+    public void text(Blackhole blackhole){
+
+        String message = String.format("%s %d %d", MessageCreator.ELECTION_TAG, this.initializerId, this.maximumId);
+
+        String[] parts = message.split("\\s");
+        blackhole.consume(parts[0]);
+        blackhole.consume(Integer.valueOf(parts[1]));
+        blackhole.consume(Integer.valueOf(parts[2]));
+    }
+}
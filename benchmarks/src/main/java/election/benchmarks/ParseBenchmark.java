@@ -0,0 +1,69 @@
+package election.benchmarks;
+
+import election.MappedTopologyParser;
+import election.Topology;
+import election.TopologyParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+Parsing of a generated input file with the given number of nodes and neighbours per node.
+The size of the file is printed when it is written, so that throughput in MB/s is that size over the time per parse.
+*/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+    @Param({"reader", "mapped"})
+    public String parser;
+
+    @Param({"100000"})
+    public int size;
+
+    @Param({"10"})
+    public int degree;
+
+    private File input;
+
+    @Setup(Level.Trial)
+    public void writeInput() throws IOException {
+
+        this.input = File.createTempFile("parse-", ".txt");
+        this.input.deleteOnExit();
+
+        Random random = new Random(1);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(this.input))) {
+
+            writer.write("Node_id Neighbours\n");
+            for (int id=1; id<=this.size; id++){
+                writer.write(Integer.toString(id));
+                for (int d=0; d<this.degree; d++){
+                    writer.write(" " + (1 + random.nextInt(this.size)));
+                }
+                writer.write("\n");
+            }
+
+            writer.write("ELECT 1 1 " + (this.size / 2) + "\n");
+            writer.write("FAIL " + this.size + "\n");
+        }
+
+        System.out.println(String.format("Input file: %,d bytes", this.input.length()));
+    }
+
+    @Benchmark
+    public Topology parse() throws IOException {
+
+        if (this.parser.equals("mapped")){
+            return MappedTopologyParser.parse(this.input.getPath());
+        }
+
+        return TopologyParser.parse(this.input.getPath());
+    }
+}
@@ -0,0 +1,71 @@
+package election.benchmarks;
+
+import election.DiscreteEventSimulator;
+import election.MessageCreator;
+import election.Network;
+import election.NetworkSettings;
+import election.Node;
+import election.Topology;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+Round throughput of the delivery stage. Every node of the ring holds a LEADER message for an id that does not exist,
+so each node forwards one message per round forever and every round delivers exactly one message per node.
+deliveryThreads only applies to the threaded engine; compare it against the number of cores of the machine.
+*/
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RoundBenchmark {
+
+    @Param({"des", "threaded"})
+    public String engine;
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    @Param({"1", "2", "4", "8"})
+    public int deliveryThreads;
+
+    private Network network;
+
+    private DiscreteEventSimulator simulator;
+
+    @Setup(Level.Trial)
+    public void start(){
+
+        Topology topology = Scenarios.ring(this.size);
+        topology.compact();
+
+        for (Node node : topology.getNodes()){
+            node.outgoingMessages.add(MessageCreator.createLeaderMessage(0, MessageCreator.MAX_ID));
+        }
+
+        NetworkSettings settings = Scenarios.settings();
+        settings.setDeliveryThreads(this.deliveryThreads);
+
+        if (this.engine.equals("des")){
+            this.simulator = new DiscreteEventSimulator(topology, settings);
+        }else{
+            this.network = new Network(topology, settings);
+            this.network.startNodes();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop(){
+        if (this.network != null){
+            this.network.stopNetwork();
+        }
+    }
+
+    @Benchmark
+    public boolean round(){
+        return this.network != null ? this.network.runRound() : this.simulator.step();
+    }
+}
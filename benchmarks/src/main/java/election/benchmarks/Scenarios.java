@@ -0,0 +1,90 @@
+package election.benchmarks;
+
+import election.Action;
+import election.MessageCreator;
+import election.NetworkSettings;
+import election.Logger;
+import election.Node;
+import election.Topology;
+
+// Topologies and settings shared by the benchmarks, built in memory so that no input file is needed
+final class Scenarios {
+
+    private Scenarios(){
+    }
+
+    // Ring 1 -> 2 -> ... -> size -> 1, where each node's only neighbours are its two ring links
+    static Topology ring(int size){
+
+        Topology topology = new Topology();
+        for (int id=1; id<=size; id++){
+            topology.addOrGetNodeWithId(id);
+        }
+
+        for (int id=1; id<=size; id++){
+            Node node = topology.getNodeWithId(id);
+            Node next = topology.getNodeWithId(id == size ? 1 : id + 1);
+            Node previous = topology.getNodeWithId(id == 1 ? size : id - 1);
+
+            node.setNextNode(next);
+            node.setPreviousNode(previous);
+            topology.addNeighbour(node, next);
+            topology.addNeighbour(node, previous);
+        }
+
+        return topology;
+    }
+
+    // single: node 1 starts an election in round 1
+    // concurrent: like the ELECT lines of input.txt, several initiators spread over the ring start elections in a few rounds
+    // failover: a single election, after which the leader fails and its neighbours elect a new one
+    static Topology election(String scenario, int size){
+
+        Topology topology = ring(size);
+
+        switch (scenario){
+
+            case "single":
+                topology.addAction(1, elect(topology, 1));
+                break;
+
+            case "concurrent":
+                topology.addAction(1, elect(topology, 1, size / 4, size / 2));
+                topology.addAction(3, elect(topology, size / 8, 3 * size / 4));
+                topology.addAction(8, elect(topology, size / 3, 7 * size / 8));
+                break;
+
+            case "failover":
+                topology.addAction(1, elect(topology, 1));
+                topology.addFailure(topology.getNodeWithId(size));
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unknown scenario " + scenario);
+        }
+
+        topology.compact();
+
+        return topology;
+    }
+
+    // Quiet settings, so that the benchmarks measure the simulation and not the console
+    static NetworkSettings settings(){
+
+        NetworkSettings settings = new NetworkSettings();
+        settings.setLogLevel(Logger.Level.INFO);
+        settings.setConsoleEcho(false);
+
+        return settings;
+    }
+
+    private static Action elect(Topology topology, int... ids){
+
+        Action action = new Action(MessageCreator.ELECTION_TAG);
+        for (int id : ids){
+            action.addNode(topology.getNodeWithId(Math.max(id, 1)));
+        }
+
+        return action;
+    }
+}
@@ -1,10 +1,12 @@
+package election;
+
 import java.util.ArrayList;
 
 
-// Action class, currently only used for storing elections
+// Action class, used for storing the elections and failures scheduled for a round
 public class Action {
 
-    // Type of the action. E.g. ELECT
+    // Type of the action: ELECT or FAIL
     private String type;
 
     // List of nodes taking part in the specific action
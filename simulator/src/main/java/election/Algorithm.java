@@ -0,0 +1,46 @@
+package election;
+
+// The election algorithms that can be chosen for a run, e.g. --algorithm=franklin
+public enum Algorithm {
+
+    // Unidirectional, O(n^2) messages in the worst case
+    CHANG_ROBERTS,
+
+    // Bidirectional, probes at doubling distances, O(n log n) messages
+    HIRSCHBERG_SINCLAIR,
+
+    // Bidirectional, candidates compare with their nearest candidate on both sides, O(n log n) messages
+    FRANKLIN,
+
+    // Uses all links of the graph, about twice the diameter in rounds
+    ECHO_EXTINCTION,
+
+    // Chang-Roberts inside segments of the ring, then among the segment heads, about n/k + k rounds for k segments
+    HIERARCHICAL;
+
+    public ElectionAlgorithm create(NetworkSettings settings){
+
+        switch (this){
+            case HIRSCHBERG_SINCLAIR:
+                return new HirschbergSinclair();
+            case FRANKLIN:
+                return new Franklin();
+            case ECHO_EXTINCTION:
+                return new EchoExtinction();
+            case HIERARCHICAL:
+                return new Hierarchical();
+            default:
+                return new ChangRoberts(settings.isDropDominated());
+        }
+    }
+
+    // Sets the topology up for the algorithm, before the nodes get their instances
+    public void prepare(Topology topology, NetworkSettings settings){
+
+        // About sqrt(n) segments by default, which makes the segments and the overlay equally long
+        if (this == HIERARCHICAL && !topology.isSegmented()){
+            int segments = settings.getSegments();
+            topology.segment(segments > 0 ? segments : (int) Math.ceil(Math.sqrt(topology.size())));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package election;
+
+import java.util.*;
+
+/*
+Runs every election algorithm on the same rings with the discrete-event simulator, and reports the rounds and
+messages each one needs. Every node starts an election in the first round. The id orders are:
+
+- ascending: ids grow along the ring direction, the best case for Chang-Roberts
+- descending: ids shrink along the ring direction, the worst case for Chang-Roberts, n(n+1)/2 ELECT messages
+- random: a shuffled ring, with a fixed seed
+
+Usage: java AlgorithmComparison [size...]   (default sizes: 256 1024 4096)
+*/
+public class AlgorithmComparison {
+
+    public static void main(String args[]) {
+
+        int[] sizes = {256, 1024, 4096};
+        if (args.length > 0){
+            sizes = new int[args.length];
+            for (int i=0; i<args.length; i++){
+                sizes[i] = Integer.valueOf(args[i]);
+            }
+        }
+
+        NetworkSettings settings = new NetworkSettings();
+        settings.setLogLevel(Logger.Level.INFO);
+        settings.setConsoleEcho(false);
+
+        System.out.println(String.format("%-8s %-12s %-20s %8s %12s %8s", "size", "order", "algorithm", "rounds", "messages", "leader"));
+
+        for (int size : sizes){
+            for (String order : new String[] {"ascending", "descending", "random"}){
+                for (Algorithm algorithm : Algorithm.values()){
+
+                    settings.setAlgorithm(algorithm);
+
+                    DiscreteEventSimulator simulator = new DiscreteEventSimulator(ring(ids(order, size)), settings);
+                    simulator.run();
+
+                    Node leader = simulator.getLeader();
+                    if (leader == null || leader.getNodeId() != size){
+                        throw new IllegalStateException(algorithm + " did not elect node " + size + " on the " + order + " ring");
+                    }
+
+                    System.out.println(String.format("%-8d %-12s %-20s %8d %12d %8d",
+                            size, order, algorithm, simulator.getRound(), simulator.getMessagesDelivered(), leader.getNodeId()));
+                }
+            }
+        }
+    }
+
+    // Ids 1..size in ring order
+    private static int[] ids(String order, int size){
+
+        int[] ids = new int[size];
+        for (int i=0; i<size; i++){
+            ids[i] = order.equals("descending") ? size - i : i + 1;
+        }
+
+        if (order.equals("random")){
+            Random random = new Random(42);
+            for (int i=size - 1; i>0; i--){
+                int j = random.nextInt(i + 1);
+                int swap = ids[i];
+                ids[i] = ids[j];
+                ids[j] = swap;
+            }
+        }
+
+        return ids;
+    }
+
+    // Ring ids[0] -> ids[1] -> ... -> ids[0], where every node starts an election in the first round
+    private static Topology ring(int[] ids){
+
+        Topology topology = new Topology();
+        Action elect = new Action(MessageCreator.ELECTION_TAG);
+
+        for (int id : ids){
+            elect.addNode(topology.addOrGetNodeWithId(id));
+        }
+
+        for (int i=0; i<ids.length; i++){
+            Node node = topology.getNodeWithId(ids[i]);
+            Node next = topology.getNodeWithId(ids[(i + 1) % ids.length]);
+            Node previous = topology.getNodeWithId(ids[(i + ids.length - 1) % ids.length]);
+
+            node.setNextNode(next);
+            node.setPreviousNode(previous);
+            topology.addNeighbour(node, next);
+            topology.addNeighbour(node, previous);
+        }
+
+        topology.addAction(1, elect);
+        topology.compact();
+
+        return topology;
+    }
+}
@@ -0,0 +1,126 @@
+package election;
+
+import java.io.*;
+import java.util.*;
+
+/*
+Shows what the link capacity, batching and dropping dominated ELECT messages change when elections overlap. Each
+topology runs with every ring algorithm, with a capacity of 1 and of 4 messages per link and round, each without and
+with batching. Chang-Roberts also runs each of these without and with --drop-dominated, so that the effect of either
+change can be told apart. For every run it prints the round in which the first leader was elected, the total rounds,
+the messages and the frames delivered.
+
+The topologies are the given input files, then a ring of the given size with shuffled ids, where a tenth of the
+nodes start elections in rounds 1, 3 and 8.
+
+Usage: java BatchingComparison [input file...] [--size=1000]
+*/
+public class BatchingComparison {
+
+    public static void main(String args[]) throws IOException {
+
+        ArrayList<String> files = new ArrayList<>();
+        int size = 1000;
+
+        for (String arg : args){
+            if (arg.startsWith("--size=")){
+                size = Integer.valueOf(arg.substring(7));
+            }else{
+                files.add(arg);
+            }
+        }
+
+        System.out.println(String.format("%-24s %-20s %8s %8s %8s %12s %8s %10s %10s", "topology", "algorithm", "capacity",
+                "batching", "drop", "first_leader", "rounds", "messages", "frames"));
+
+        for (Algorithm algorithm : new Algorithm[] {Algorithm.CHANG_ROBERTS, Algorithm.HIRSCHBERG_SINCLAIR, Algorithm.FRANKLIN}){
+            for (int capacity : new int[] {1, 4}){
+                for (boolean batching : new boolean[] {false, true}){
+
+                    // Only Chang-Roberts drops dominated messages
+                    boolean[] drops = algorithm == Algorithm.CHANG_ROBERTS ? new boolean[] {false, true} : new boolean[] {false};
+                    for (boolean drop : drops){
+
+                        for (String file : files){
+                            run(file, MappedTopologyParser.parse(file), algorithm, capacity, batching, drop);
+                        }
+
+                        run(String.format("concurrent n=%d", size), concurrentRing(size), algorithm, capacity, batching, drop);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void run(String name, Topology topology, Algorithm algorithm, int capacity, boolean batching, boolean drop){
+
+        NetworkSettings settings = new NetworkSettings();
+        settings.setAlgorithm(algorithm);
+        settings.setLinkCapacity(capacity);
+        settings.setBatching(batching);
+        settings.setDropDominated(drop);
+        settings.setLogLevel(Logger.Level.INFO);
+        settings.setConsoleEcho(false);
+
+        DiscreteEventSimulator simulator = new DiscreteEventSimulator(topology, settings);
+
+        int firstLeaderRound = -1;
+        while (simulator.step()){
+            if (firstLeaderRound < 0 && simulator.getLeader() != null){
+                firstLeaderRound = simulator.getRound();
+            }
+        }
+
+        Logger.getInstance().closeWriter();
+
+        System.out.println(String.format("%-24s %-20s %8d %8s %8s %12d %8d %10d %10d", name, algorithm, capacity, batching,
+                drop, firstLeaderRound, simulator.getRound(), simulator.getMessagesDelivered(), simulator.getFramesDelivered()));
+    }
+
+    // Ring through ids 1..size in a shuffled order, with every tenth node starting an election in round 1, 3 or 8
+    private static Topology concurrentRing(int size){
+
+        int[] ids = new int[size];
+        for (int i=0; i<size; i++){
+            ids[i] = i + 1;
+        }
+
+        Random random = new Random(42);
+        for (int i=size - 1; i>0; i--){
+            int j = random.nextInt(i + 1);
+            int swap = ids[i];
+            ids[i] = ids[j];
+            ids[j] = swap;
+        }
+
+        Topology topology = new Topology();
+        for (int id : ids){
+            topology.addOrGetNodeWithId(id);
+        }
+
+        int[] rounds = {1, 3, 8};
+        Action[] actions = new Action[rounds.length];
+        for (int i=0; i<rounds.length; i++){
+            actions[i] = new Action(MessageCreator.ELECTION_TAG);
+            topology.addAction(rounds[i], actions[i]);
+        }
+
+        for (int i=0; i<size; i++){
+            Node node = topology.getNodeWithId(ids[i]);
+            Node next = topology.getNodeWithId(ids[(i + 1) % size]);
+
+            node.setNextNode(next);
+            next.setPreviousNode(node);
+            topology.addNeighbour(node, next);
+            topology.addNeighbour(next, node);
+
+            if (i % 10 == 0){
+                actions[(i / 10) % rounds.length].addNode(node);
+            }
+        }
+
+        topology.compact();
+
+        return topology;
+    }
+}
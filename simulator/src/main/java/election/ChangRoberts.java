@@ -0,0 +1,146 @@
+package election;
+
+/*
+The original algorithm of the simulator: ELECT messages travel to the next node and only the largest id survives.
+
+A node that fails in the middle of an election can take the winning ELECT message with it. Its neighbours then start
+the election over in a new epoch: nodes reset their state when the first message of a newer epoch reaches them and
+drop the messages of older ones, so the ELECT of a failed node cannot go around the ring forever.
+*/
+public class ChangRoberts implements ElectionAlgorithm {
+
+    private boolean participant = false;
+
+    // Bumped, modulo 8, each time an election is started over because of a failure
+    private int epoch;
+
+    // Drop ELECT messages whose id is smaller than one this node already sent on, as they cannot win anymore
+    private final boolean dropDominated;
+
+    private int maxForwarded = -1;
+
+    public ChangRoberts(){
+        this(false);
+    }
+
+    public ChangRoberts(boolean dropDominated){
+        this.dropDominated = dropDominated;
+    }
+
+    @Override
+    public void start(Node node){
+        this.forward(node, this.stamp(MessageCreator.createElectMessage(node.getNodeId(), node.getNodeId())));
+    }
+
+    // Starts over if the leader failed, or if an election this node took part in may have lost its winner
+    @Override
+    public void nodeFailed(Node node, Node failed){
+
+        if (failed.isNodeLeader() || this.participant){
+            this.newEpoch((this.epoch + 1) & 7);
+            this.start(node);
+        }
+    }
+
+    @Override
+    public void handleMessage(Node node, long message, boolean fromNext){
+
+        if (MessageCreator.getMessageType(message) != MessageCreator.ELECTION){
+            return;
+        }
+
+        // Messages of an older epoch belong to an election that was started over, those of a newer one start it over here
+        int age = (MessageCreator.getEpoch(message) - this.epoch) & 7;
+        if (age > 4){
+            return;
+        }
+
+        if (age != 0){
+            this.newEpoch(MessageCreator.getEpoch(message));
+        }
+
+        int id = node.getNodeId();
+        int electionInitializerId = MessageCreator.getInitializerIdFromElectMessage(message);
+        int incomingId = MessageCreator.getMaximumIdFromElectMessage(message);
+
+        node.getLogger().trace("Node %d received election message with id %d.", id, incomingId);
+
+        if (this.dropDominated && incomingId < this.maxForwarded){
+            return;
+        }
+
+        if (!this.participant){
+
+            // Send the larger ID
+            if (id > incomingId){
+                this.forward(node, this.stamp(MessageCreator.createElectMessage(electionInitializerId, id)));
+            }else{
+                this.forward(node, message);
+            }
+
+            this.participant = true;
+        }else{
+
+            // If we find out that we are the leader, signal Leader message
+            if (incomingId == id){
+                this.participant = false;
+                node.becomeLeader(electionInitializerId);
+            }
+
+            // If incoming ID is larger than ours, then send it
+            if (incomingId > id){
+                this.forward(node, message);
+            }
+        }
+    }
+
+    // If we send out an election message, we become a participant
+    @Override
+    public void messageSent(Node node, long message){
+
+        if (MessageCreator.getMessageType(message) == MessageCreator.ELECTION){
+            this.participant = true;
+        }
+    }
+
+    @Override
+    public void leaderElected(Node node, int leaderId){
+
+        if (node.getNodeId() != leaderId){
+            this.participant = false;
+        }
+
+        this.maxForwarded = -1;
+    }
+
+    // Epoch, participant flag and the largest id forwarded
+    @Override
+    public void saveState(LongQueue state){
+        state.add(this.epoch | (this.participant ? 8 : 0) | (long) (this.maxForwarded + 1) << 32);
+    }
+
+    @Override
+    public void restoreState(LongQueue state, Topology topology){
+
+        long flags = state.poll();
+        this.epoch = (int) flags & 7;
+        this.participant = (flags & 8) != 0;
+        this.maxForwarded = (int) (flags >>> 32) - 1;
+    }
+
+    private void newEpoch(int epoch){
+        this.epoch = epoch;
+        this.participant = false;
+        this.maxForwarded = -1;
+    }
+
+    private long stamp(long message){
+        return MessageCreator.withEpoch(message, this.epoch);
+    }
+
+    private void forward(Node node, long message){
+
+        this.maxForwarded = Math.max(this.maxForwarded, MessageCreator.getMaximumIdFromElectMessage(message));
+        node.send(message);
+    }
+}
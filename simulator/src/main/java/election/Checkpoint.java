@@ -0,0 +1,316 @@
+package election;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.List;
+
+/*
+Snapshot of a threaded network run, written with --checkpoint=<file> every --checkpoint-every rounds and resumed
+with --resume=<file> and the same options. The network writes one between two logical rounds, when every node has
+handled its mailbox but messages may still wait in the outgoing queues, so the run is described by
+
+    int   magic, version
+    int   the options that decide what the state of a node looks like: algorithm, heartbeat period, suspect-after,
+          segments, link capacity, batching and drop-dominated, which a resumed run must give again
+    int   round, messages delivered, frames delivered
+    ...   the topology: ids, ring links, failed and leader flags, neighbour arrays, segments, pending actions and
+          failures
+    int   number of longs of state, then the longs: per node whether it is active, its outgoing queues, the state
+          of its election algorithm and of its failure detector, then the heartbeat statistics and the nodes suspected
+          in the last round
+
+The ints and longs are written as raw arrays through a FileChannel, so a resume reads a few bulk copies instead of
+parsing the input again. They are big-endian whatever the machine, so a checkpoint can be resumed on another one. A
+checkpoint is written to a temporary file first and then moved over the previous one, so a run that dies while
+writing still leaves the previous checkpoint behind.
+*/
+public class Checkpoint implements Closeable {
+
+    public static final int MAGIC = 0x454c434b;
+
+    public static final int VERSION = 4;
+
+    // Names of the options in the header, in their order there
+    private static final String[] OPTIONS = {"--algorithm", "--heartbeat", "--suspect-after", "--segments", "--link-capacity",
+            "--batching", "--drop-dominated"};
+
+    private static final int BUFFER = 1 << 20;
+
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER).order(ByteOrder.BIG_ENDIAN);
+
+    private final boolean writing;
+
+    private int round;
+
+    private int messagesDelivered;
+
+    private int framesDelivered;
+
+    private int[] options;
+
+    private Topology topology;
+
+    private LongQueue state;
+
+    private Checkpoint(FileChannel channel, boolean writing){
+        this.channel = channel;
+        this.writing = writing;
+
+        if (!writing){
+            this.buffer.limit(0);
+        }
+    }
+
+    // Heartbeats and suspected are null unless the run has failure detectors
+    public static void write(String fileName, int[] options, int round, int messagesDelivered, int framesDelivered,
+            Topology topology, HeartbeatStats heartbeats, List<Node> suspected) throws IOException {
+
+        Path target = Paths.get(fileName);
+        Path temporary = Paths.get(fileName + ".tmp");
+
+        try (Checkpoint out = new Checkpoint(FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), true)) {
+
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putInts(options, OPTIONS.length);
+            out.putInt(round);
+            out.putInt(messagesDelivered);
+            out.putInt(framesDelivered);
+
+            topology.writeTo(out);
+
+            LongQueue state = new LongQueue();
+            for (Node node : topology.getNodes()){
+                node.saveState(state);
+            }
+
+            if (heartbeats != null){
+                heartbeats.saveState(state);
+
+                state.add(suspected.size());
+                for (Node node : suspected){
+                    state.add(node.getIndex());
+                }
+            }
+
+            out.putInt(state.size());
+            out.putLongs(state);
+        }
+
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static Checkpoint read(String fileName) throws IOException {
+
+        try (Checkpoint in = new Checkpoint(FileChannel.open(Paths.get(fileName), StandardOpenOption.READ), false)) {
+
+            if (in.getInt() != MAGIC || in.getInt() != VERSION){
+                throw new IOException(fileName + " is not a checkpoint of this version");
+            }
+
+            in.options = in.getInts(OPTIONS.length);
+            in.round = in.getInt();
+            in.messagesDelivered = in.getInt();
+            in.framesDelivered = in.getInt();
+            in.topology = Topology.readFrom(in);
+            in.state = in.getLongs(in.getInt());
+
+            return in;
+        }
+    }
+
+    // The options of a run as they are written in the header
+    public static int[] options(NetworkSettings settings){
+        return new int[] {settings.getAlgorithm().ordinal(), settings.getHeartbeatPeriod(), settings.getSuspectAfter(),
+                settings.getSegments(), settings.getLinkCapacity(), settings.isBatching() ? 1 : 0, settings.isDropDominated() ? 1 : 0};
+    }
+
+    // Refuses to resume with other options than the run that wrote the checkpoint, as the state of its nodes would be
+    // read the wrong way
+    public void checkOptions(NetworkSettings settings){
+
+        int[] options = options(settings);
+        for (int i=0; i<OPTIONS.length; i++){
+            if (options[i] != this.options[i]){
+                throw new IllegalArgumentException("The checkpoint was written by a run with other options: " + OPTIONS[i] + " differs");
+            }
+        }
+    }
+
+    public int getRound() {
+        return this.round;
+    }
+
+    public int getMessagesDelivered() {
+        return this.messagesDelivered;
+    }
+
+    public int getFramesDelivered() {
+        return this.framesDelivered;
+    }
+
+    public Topology getTopology() {
+        return this.topology;
+    }
+
+    // State of every node, by node index, then of the heartbeats and the suspected nodes, to be read back in the same
+    // order
+    public LongQueue getState() {
+        return this.state;
+    }
+
+    // Writes a queue to the state of a node or an algorithm, as its size and its elements
+    public static void saveQueue(LongQueue state, LongQueue queue){
+
+        state.add(queue.size());
+        for (int i=0; i<queue.size(); i++){
+            state.add(queue.get(i));
+        }
+    }
+
+    // Reads a queue written by saveQueue back into an empty one
+    public static void restoreQueue(LongQueue state, LongQueue queue){
+
+        for (long i=state.poll(); i>0; i--){
+            queue.add(state.poll());
+        }
+    }
+
+    public void putInt(int value) throws IOException {
+
+        if (this.buffer.remaining() < Integer.BYTES){
+            this.flush();
+        }
+
+        this.buffer.putInt(value);
+    }
+
+    public void putInts(int[] values, int count) throws IOException {
+
+        for (int done=0; done<count; ){
+
+            int chunk = Math.min(count - done, this.buffer.remaining() / Integer.BYTES);
+            if (chunk == 0){
+                this.flush();
+                continue;
+            }
+
+            this.buffer.asIntBuffer().put(values, done, chunk);
+            this.buffer.position(this.buffer.position() + chunk * Integer.BYTES);
+            done += chunk;
+        }
+    }
+
+    public void putLongs(LongQueue values) throws IOException {
+
+        long[] chunk = new long[BUFFER / Long.BYTES];
+        for (int done=0; done<values.size(); ){
+
+            int count = Math.min(values.size() - done, this.buffer.remaining() / Long.BYTES);
+            if (count == 0){
+                this.flush();
+                continue;
+            }
+
+            for (int i=0; i<count; i++){
+                chunk[i] = values.get(done + i);
+            }
+
+            this.buffer.asLongBuffer().put(chunk, 0, count);
+            this.buffer.position(this.buffer.position() + count * Long.BYTES);
+            done += count;
+        }
+    }
+
+    public int getInt() throws IOException {
+
+        if (this.buffer.remaining() < Integer.BYTES){
+            this.fill(Integer.BYTES);
+        }
+
+        return this.buffer.getInt();
+    }
+
+    public int[] getInts(int count) throws IOException {
+
+        int[] values = new int[count];
+        for (int done=0; done<count; ){
+
+            int chunk = Math.min(count - done, this.buffer.remaining() / Integer.BYTES);
+            if (chunk == 0){
+                this.fill(Integer.BYTES);
+                continue;
+            }
+
+            this.buffer.asIntBuffer().get(values, done, chunk);
+            this.buffer.position(this.buffer.position() + chunk * Integer.BYTES);
+            done += chunk;
+        }
+
+        return values;
+    }
+
+    public LongQueue getLongs(int count) throws IOException {
+
+        LongQueue values = new LongQueue(count);
+        long[] chunk = new long[BUFFER / Long.BYTES];
+        for (int done=0; done<count; ){
+
+            int read = Math.min(count - done, this.buffer.remaining() / Long.BYTES);
+            if (read == 0){
+                this.fill(Long.BYTES);
+                continue;
+            }
+
+            this.buffer.asLongBuffer().get(chunk, 0, read);
+            this.buffer.position(this.buffer.position() + read * Long.BYTES);
+            for (int i=0; i<read; i++){
+                values.add(chunk[i]);
+            }
+            done += read;
+        }
+
+        return values;
+    }
+
+    private void flush() throws IOException {
+
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()){
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    // Reads on until at least the given number of bytes is buffered
+    private void fill(int bytes) throws IOException {
+
+        this.buffer.compact();
+        while (this.buffer.position() < bytes){
+            if (this.channel.read(this.buffer) < 0){
+                throw new EOFException("The checkpoint ends too early");
+            }
+        }
+
+        // Take whatever else is there in the same go
+        this.channel.read(this.buffer);
+        this.buffer.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        if (this.writing){
+            this.flush();
+            this.channel.force(false);
+        }
+
+        this.channel.close();
+    }
+}
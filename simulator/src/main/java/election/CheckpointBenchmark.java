@@ -0,0 +1,56 @@
+package election;
+
+import java.io.*;
+
+/*
+Resuming from a checkpoint against parsing the input again. Parses the input (a shuffled ring with one election and
+a few scheduled failures, generated if no file is given), writes a checkpoint of the topology as the network would,
+reads it back, and prints the time of each step and the size of both files.
+
+Usage: java CheckpointBenchmark [size | input file]   (default: 1000000 nodes)
+*/
+public class CheckpointBenchmark {
+
+    public static void main(String args[]) throws IOException {
+
+        String size = args.length > 0 ? args[0] : "1000000";
+
+        File input = new File(size);
+        if (!input.exists()){
+            input = File.createTempFile("ring-" + size + "-", ".txt");
+            input.deleteOnExit();
+
+            WorkloadGenerator generator = new WorkloadGenerator();
+            generator.setNodes(Integer.parseInt(size));
+            generator.setFailures(100);
+            generator.write(input.getPath());
+        }
+
+        File checkpoint = File.createTempFile("checkpoint-", ".bin");
+        checkpoint.deleteOnExit();
+
+        // A couple of passes, so that the last one runs compiled
+        for (int pass=0; pass<3; pass++){
+
+            long startTime = System.nanoTime();
+            Topology topology = MappedTopologyParser.parse(input.getPath());
+            double parseSeconds = (System.nanoTime() - startTime) / 1e9;
+
+            startTime = System.nanoTime();
+            Checkpoint.write(checkpoint.getPath(), Checkpoint.options(new NetworkSettings()), 0, 0, 0, topology, null, null);
+            double writeSeconds = (System.nanoTime() - startTime) / 1e9;
+
+            startTime = System.nanoTime();
+            Topology resumed = Checkpoint.read(checkpoint.getPath()).getTopology();
+            double readSeconds = (System.nanoTime() - startTime) / 1e9;
+
+            if (resumed.size() != topology.size() || resumed.getFailures().size() != topology.getFailures().size()){
+                throw new IllegalStateException("The checkpoint does not hold the parsed topology");
+            }
+
+            System.out.println(String.format("RESULT nodes=%d parse=%.3fs (%.1f MB) checkpoint write=%.3fs read=%.3fs (%.1f MB) %.1fx faster",
+                    topology.size(), parseSeconds, input.length() / 1e6, writeSeconds, readSeconds, checkpoint.length() / 1e6,
+                    parseSeconds / readSeconds));
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package election;
+
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+
+/*
+Runs a simulation with the nodes spread over worker processes on this machine, which exchange their messages over
+loopback sockets (see SocketTransport and TransportWorker). The coordinator holds no node state: it tells the workers
+when a round starts and which nodes fail in it, and collects from each worker the number of messages still queued,
+the number delivered and the leaders elected, to decide when the run is over and to write the LEADER lines. Every
+worker parses the same input file, so they all agree on the node indexes, the ring and the ELECT schedule.
+
+With heartbeats, a worker also reports the nodes its detectors suspected. The coordinator passes them on to every
+worker in the next round, so that all of them close the ring over the node, and keeps the detection statistics.
+
+Control messages are length-prefixed lists of longs over blocking sockets:
+
+    HELLO   worker -> coordinator   worker number, port its transport listens on
+    PEERS   coordinator -> worker   port of every worker
+    ROUND   coordinator -> worker   round, number of failures, then node index and 1 if it was a leader, per failure,
+                                    then the number of nodes suspected in the last round and their node indexes
+    DONE    worker -> coordinator   messages still counted, messages and heartbeats delivered, number of leaders,
+                                    then their ids, number of nodes suspected, then their node indexes
+    STOP    coordinator -> worker   round 0. The worker answers with the bytes and frames it sent, then exits.
+
+Workers run in a temporary directory, so that their own log.txt files do not overwrite this one. Each worker writes
+the metrics and the trace of its own nodes, to the given file name followed by its number.
+
+Usage: java Network <input file> --processes=N [options]
+*/
+public class Coordinator {
+
+    private final String fileName;
+
+    private final String[] options;
+
+    private final NetworkSettings settings;
+
+    private final int workerCount;
+
+    private final Topology topology;
+
+    private final HashMap<Integer, ArrayList<Action>> roundActions;
+
+    private final ArrayDeque<Node> failures;
+
+    private final Logger logger;
+
+    // Every node that was ever reported as leader, so that workers can tell whether a failed node was one
+    private final HashSet<Integer> leaders = new HashSet<>();
+
+    // Null unless failures are found with heartbeats
+    private final HeartbeatStats heartbeats;
+
+    // Suspected by the detectors of the workers in the last round, for every worker to close the ring over them
+    private final ArrayList<Node> suspected = new ArrayList<>();
+
+    private SocketChannel[] channels;
+
+    private int round;
+
+    // Messages still queued at the end of the last round, over all workers
+    private long pending;
+
+    private long messagesDelivered;
+
+    private long bytesSent;
+
+    private long framesSent;
+
+    public Coordinator(String fileName, NetworkSettings settings, String[] options) throws IOException {
+
+        if (settings.getCheckpointFile() != null || settings.getResumeFile() != null){
+            throw new IllegalArgumentException("Checkpoints are not supported with --processes");
+        }
+
+        // Before the workers are started, whose networks would each refuse the options
+        if (settings.getHeartbeatPeriod() > 0 && settings.getRoundMode() != RoundMode.LOGICAL){
+            throw new IllegalArgumentException("Heartbeats need --rounds=logical, where the round barrier keeps the nodes from running while their detectors are ticked");
+        }
+
+        this.fileName = Paths.get(fileName).toAbsolutePath().toString();
+        this.options = options;
+        this.settings = settings;
+        this.workerCount = settings.getProcesses();
+        this.heartbeats = settings.getHeartbeatPeriod() > 0 ? new HeartbeatStats() : null;
+
+        this.logger = Logger.getInstance();
+        this.logger.configure(settings.isAsyncLogging(), settings.getLogLevel(), settings.isConsoleEcho());
+
+        this.topology = MappedTopologyParser.parse(fileName);
+        this.roundActions = this.topology.getRoundActions();
+        this.failures = this.topology.getFailures();
+    }
+
+    public void run() throws IOException, InterruptedException {
+
+        Path directory = Files.createTempDirectory("election-workers");
+        Process[] workers = new Process[this.workerCount];
+
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            int port = ((InetSocketAddress) server.getLocalAddress()).getPort();
+
+            for (int k=0; k<this.workerCount; k++){
+                workers[k] = this.startWorker(directory, port, k);
+            }
+
+            this.connect(server);
+
+            long startTime = System.nanoTime();
+
+            while (this.runRound()){
+            }
+
+            this.stopWorkers();
+
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+            System.out.println(String.format("%d rounds in %.3f s (%.1f rounds/s, %d processes): %d messages, %d frames, %d bytes over sockets",
+                    this.round, seconds, this.round / seconds, this.workerCount, this.messagesDelivered, this.framesSent, this.bytesSent));
+
+            if (this.heartbeats != null){
+                System.out.println(this.heartbeats);
+            }
+        } finally {
+            for (Process worker : workers){
+                if (worker != null && !worker.waitFor(10, java.util.concurrent.TimeUnit.SECONDS)){
+                    worker.destroyForcibly();
+                }
+            }
+
+            Files.deleteIfExists(directory.resolve("log.txt"));
+            Files.deleteIfExists(directory);
+
+            this.logger.closeWriter();
+        }
+    }
+
+    private Process startWorker(Path directory, int port, int worker) throws IOException {
+
+        ArrayList<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(TransportWorker.class.getName());
+        command.add(String.valueOf(port));
+        command.add(String.valueOf(worker));
+        command.add(String.valueOf(this.workerCount));
+        command.add(this.fileName);
+
+        for (String option : this.options){
+            command.add(this.workerOption(option, worker));
+        }
+
+        return new ProcessBuilder(command)
+                .directory(directory.toFile())
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
+    // Files written by the workers get the worker's number, and an absolute path since workers run elsewhere
+    private String workerOption(String option, int worker){
+
+        for (String name : new String[] {"--metrics=", "--trace="}){
+            if (option.startsWith(name)){
+                return name + Paths.get(option.substring(name.length())).toAbsolutePath() + "." + worker;
+            }
+        }
+
+        return option;
+    }
+
+    // Waits for every worker to say hello, then tells them where the others listen
+    private void connect(ServerSocketChannel server) throws IOException {
+
+        this.channels = new SocketChannel[this.workerCount];
+        long[] ports = new long[this.workerCount];
+
+        for (int k=0; k<this.workerCount; k++){
+
+            SocketChannel channel = server.accept();
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+            long[] hello = receive(channel);
+            this.channels[(int) hello[0]] = channel;
+            ports[(int) hello[0]] = hello[1];
+        }
+
+        for (SocketChannel channel : this.channels){
+            send(channel, ports);
+        }
+    }
+
+    // Runs one round on every worker. Returns false, without doing anything else, once there is nothing left to do.
+    private boolean runRound() throws IOException {
+
+        this.round++;
+        this.logger.debug("\n-- Round %d starting", this.round);
+
+        ArrayList<Node> failing = new ArrayList<>();
+
+        // Same stopping conditions as the threaded network: one failure at a time whenever the network is quiet
+        boolean quiet = this.pending == 0 && (this.heartbeats == null || (!this.heartbeats.hasUndetected() && this.suspected.isEmpty()));
+        if (this.roundActions.size() == 0 && quiet){
+
+            if (this.failures.size() == 0){
+                return false;
+            }
+
+            failing.add(this.failures.poll());
+        }
+
+        // The workers start the elections themselves, the failures of the round are told by the coordinator
+        ArrayList<Action> actions = this.roundActions.remove(this.round);
+        if (actions != null){
+            for (Action action : actions){
+                if (action.getType().equals(MessageCreator.FAIL_TAG)){
+                    failing.addAll(action.getNodes());
+                }
+            }
+        }
+
+        // Suspected in the last round: every worker closes the ring over them
+        List<Node> closed = new ArrayList<>(this.suspected);
+        this.suspected.clear();
+
+        long[] command = new long[3 + 2 * failing.size() + closed.size()];
+        command[0] = this.round;
+        command[1] = failing.size();
+        for (int i=0; i<failing.size(); i++){
+            Node node = failing.get(i);
+            command[2 + 2 * i] = node.getIndex();
+            command[3 + 2 * i] = this.leaders.contains(node.getNodeId()) ? 1 : 0;
+
+            this.logger.debug("Node %d FAILED", node.getNodeId());
+            this.crashed(node);
+        }
+
+        int closedAt = 2 + 2 * failing.size();
+        command[closedAt] = closed.size();
+        for (int i=0; i<closed.size(); i++){
+            Node node = closed.get(i);
+            command[closedAt + 1 + i] = node.getIndex();
+
+            if (!this.topology.isFailed(node.getIndex())){
+                this.topology.markFailed(node.getIndex());
+            }
+        }
+
+        for (SocketChannel channel : this.channels){
+            send(channel, command);
+        }
+
+        this.pending = 0;
+        for (SocketChannel channel : this.channels){
+
+            long[] done = receive(channel);
+            this.pending += done[0];
+            this.messagesDelivered += done[1];
+
+            if (this.heartbeats != null){
+                this.heartbeats.heartbeatsDelivered(done[2]);
+            }
+
+            for (int i=0; i<done[3]; i++){
+                int leaderId = (int) done[4 + i];
+                this.leaders.add(leaderId);
+                this.logger.log("LEADER %d", leaderId);
+
+                if (this.heartbeats != null){
+                    this.topology.getNodeWithId(leaderId).setNodeLeader(true);
+                    this.heartbeats.leaderElected(this.round);
+                }
+            }
+
+            int leadersAt = 4 + (int) done[3];
+            // Several workers may suspect the same node, only the first counts
+            if (this.heartbeats != null){
+                for (int i=0; i<done[leadersAt]; i++){
+
+                    Node node = this.topology.getNode((int) done[leadersAt + 1 + i]);
+                    if (!this.suspected.contains(node)){
+                        this.suspected.add(node);
+                        this.heartbeats.detected(node, this.round);
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    // The same bookkeeping as the networks of the workers, so that the coordinator knows when every failure has been
+    // detected: without a neighbour to notice it, a failure is told to its neighbours right away
+    private void crashed(Node node){
+
+        if (this.heartbeats == null || this.topology.isFailed(node.getIndex())){
+            return;
+        }
+
+        if (!this.heartbeats.crashed(node, this.round)){
+            this.topology.markFailed(node.getIndex());
+        }
+    }
+
+    private void stopWorkers() throws IOException {
+
+        for (SocketChannel channel : this.channels){
+            send(channel, 0);
+        }
+
+        for (SocketChannel channel : this.channels){
+            long[] stats = receive(channel);
+            this.bytesSent += stats[0];
+            this.framesSent += stats[1];
+            channel.close();
+        }
+    }
+
+    public int getRound() {
+        return this.round;
+    }
+
+    public long getMessagesDelivered() {
+        return this.messagesDelivered;
+    }
+
+    // Writes a control message: its number of values, then the values
+    static void send(SocketChannel channel, long... values) throws IOException {
+
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 8 * values.length);
+        buffer.putInt(values.length);
+        for (long value : values){
+            buffer.putLong(value);
+        }
+        buffer.flip();
+
+        while (buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+    }
+
+    static long[] receive(SocketChannel channel) throws IOException {
+
+        ByteBuffer length = ByteBuffer.allocate(4);
+        readFully(channel, length);
+
+        ByteBuffer buffer = ByteBuffer.allocate(8 * length.getInt(0));
+        readFully(channel, buffer);
+        buffer.flip();
+
+        long[] values = new long[buffer.remaining() / 8];
+        for (int i=0; i<values.length; i++){
+            values[i] = buffer.getLong();
+        }
+
+        return values;
+    }
+
+    private static void readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()){
+            if (channel.read(buffer) < 0){
+                throw new EOFException("The other side closed the control connection");
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package election;
+
+import java.util.*;
+
+/*
+Failover of the threaded network with the failure oracle and with heartbeat failure detectors of a few periods, on the
+shuffled rings of FailoverComparison and Chang-Roberts. The leader fails once the first election is over, or the
+largest id fails in the middle of the first election.
+
+For every run it reports the rounds until the failure was detected (0 with the oracle), the rounds from the detection
+until the largest surviving id knows it is the leader, their sum, and the election messages against the heartbeats.
+The heartbeats share the links with the election, so the election itself also takes longer than with the oracle.
+
+Usage: java DetectorComparison [size...]   (default size: 1000)
+*/
+public class DetectorComparison {
+
+    // Heartbeat period and suspicion timeout, in rounds. A period of 0 is the oracle. A heartbeat every round would
+    // leave no room for the election on links of one message per round.
+    private static final int[][] DETECTORS = {{0, 0}, {2, 6}, {4, 12}, {8, 24}};
+
+    public static void main(String args[]) {
+
+        int[] sizes = {1000};
+        if (args.length > 0){
+            sizes = new int[args.length];
+            for (int i=0; i<args.length; i++){
+                sizes[i] = Integer.valueOf(args[i]);
+            }
+        }
+
+        System.out.println(String.format("%-8s %-14s %-10s %10s %10s %10s %10s %12s %10s",
+                "size", "scenario", "detector", "detection", "election", "failover", "messages", "heartbeats", "overhead"));
+
+        for (int size : sizes){
+            for (String scenario : new String[] {"leader", "mid-election"}){
+                for (int[] detector : DETECTORS){
+                    run(size, scenario, detector[0], detector[1]);
+                }
+            }
+        }
+    }
+
+    private static void run(int size, String scenario, int period, int timeout){
+
+        NetworkSettings settings = new NetworkSettings();
+        settings.setExecutionMode(ExecutionMode.LAZY);
+        settings.setLogLevel(Logger.Level.INFO);
+        settings.setConsoleEcho(false);
+        settings.setHeartbeatPeriod(period);
+        settings.setSuspectAfter(timeout);
+
+        Topology topology = FailoverComparison.ring(FailoverComparison.shuffledIds(size, new Random(42)));
+
+        // The first election needs at most three laps: to the largest id, around once more, and the LEADER lap. With a
+        // heartbeat every other round a lap takes up to twice as long.
+        int crashRound = scenario.equals("mid-election") ? size / 2 : 6 * size + 1;
+
+        Action crash = new Action(MessageCreator.FAIL_TAG);
+        crash.addNode(topology.getNodeWithId(size));
+        topology.addAction(crashRound, crash);
+
+        Node expectedLeader = topology.getNodeWithId(size - 1);
+
+        Network network = new Network(topology, settings);
+        network.startNodes();
+
+        // Only the expected leader is checked after each round, so that measuring stays O(1) per round
+        int electedRound = -1;
+        while (network.runRound()){
+            if (electedRound < 0 && network.getRound() >= crashRound && expectedLeader.isNodeLeader()){
+                electedRound = network.getRound();
+            }
+        }
+
+        network.stopNetwork();
+
+        if (electedRound < 0){
+            throw new IllegalStateException("Node " + (size - 1) + " was not elected in the " + scenario + " scenario");
+        }
+
+        HeartbeatStats heartbeats = network.getHeartbeatStats();
+        int detection = heartbeats == null ? 0 : heartbeats.getMaxDetectionRounds();
+        long heartbeatCount = heartbeats == null ? 0 : heartbeats.getHeartbeats();
+        int messages = network.getMessagesDelivered();
+
+        System.out.println(String.format("%-8d %-14s %-10s %10d %10d %10d %10d %12d %9.1fx",
+                size, scenario, period == 0 ? "oracle" : period + "/" + timeout, detection, electedRound - crashRound - detection,
+                electedRound - crashRound, messages, heartbeatCount, heartbeatCount / (double) messages));
+    }
+}
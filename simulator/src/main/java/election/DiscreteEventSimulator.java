@@ -0,0 +1,340 @@
+package election;
+
+import java.util.*;
+import java.io.*;
+
+/*
+Single-threaded alternative to Network. It follows the same round structure and the same rules
+(one message per link per round, along the ring links), but instead of running the nodes on threads,
+every delivered message becomes an event that is handled in the simulator's own thread.
+
+Events are handled in (round, node index) order, so a given input always produces the same log and the same
+message counts, without any locks or sleeps. Senders are taken in node index order too, like the shards of the
+threaded network, so both engines give the same rounds and messages for every algorithm.
+
+Usage: java DiscreteEventSimulator <input file> [--log=... --level=... --echo=...]
+*/
+public class DiscreteEventSimulator implements Simulation {
+
+    private int round;
+
+    private int messagesDelivered;
+
+    // Delivered messages that still have to be handled, ordered by (round, node index, delivery order)
+    private PriorityQueue<Event> events;
+
+    private long nextSequence;
+
+    // Nodes that have something to send, by node index, so that deliveries happen in the same order as in the network
+    private TreeMap<Integer, Node> senders;
+
+    private Topology topology;
+
+    private HashMap<Integer, ArrayList<Action>> roundActions;
+
+    private ArrayDeque<Node> failures;
+
+    private Logger logger;
+
+    private LinkScheduler scheduler;
+
+    // Deliveries: with batching, all messages of a sender for one receiver in a round make a single frame
+    private int framesDelivered;
+
+    private boolean batching;
+
+    // Null unless a trace was requested
+    private TraceRecorder trace;
+
+    // Sender and receiver of the last message scheduled, to tell frames apart
+    private Node lastSender;
+    private Node lastReceiver;
+
+    public DiscreteEventSimulator(String fileName) throws IOException {
+
+        this(fileName, new NetworkSettings());
+    }
+
+    // Only the logging, algorithm and link options of the settings apply, the other ones are specific to the threaded network
+    public DiscreteEventSimulator(String fileName, NetworkSettings settings) throws IOException {
+
+        this(MappedTopologyParser.parse(fileName), settings);
+    }
+
+    public DiscreteEventSimulator(Topology topology, NetworkSettings settings) {
+
+        this(topology, settings, Logger.getInstance());
+    }
+
+    // Same, with a logger of its own instead of the shared one
+    public DiscreteEventSimulator(Topology topology, NetworkSettings settings, Logger logger) {
+
+        this.logger = logger;
+        this.logger.configure(settings.isAsyncLogging(), settings.getLogLevel(), settings.isConsoleEcho());
+
+        this.topology = topology;
+        this.roundActions = this.topology.getRoundActions();
+        this.failures = this.topology.getFailures();
+        this.events = new PriorityQueue<>();
+        this.senders = new TreeMap<>();
+        this.scheduler = new LinkScheduler(topology, settings.getLinkCapacity());
+        this.batching = settings.isBatching();
+
+        if (settings.getTraceFile() != null){
+            try {
+                this.trace = new TraceRecorder(settings.getTraceFile());
+            } catch (IOException e) {
+                System.out.println("Unable to open the trace: " + e.toString());
+            }
+        }
+
+        settings.getAlgorithm().prepare(this.topology, settings);
+
+        // Pick up anything the nodes already want to send
+        for (Node node : this.topology.getNodes()){
+
+            node.setElectionAlgorithm(settings.getAlgorithm().create(settings));
+            node.setLogger(this.logger);
+
+            if (node.hasOutgoingMessages()){
+                this.senders.put(node.getIndex(), node);
+            }
+        }
+    }
+
+    // Runs the simulation until there is nothing left to do
+    @Override
+    public void run(){
+
+        while (this.step()){
+        }
+
+        this.logger.closeWriter();
+
+        if (this.trace != null){
+            try {
+                this.trace.close();
+            } catch (IOException e) {
+                System.out.println("Unable to write the trace: " + e.toString());
+            }
+        }
+    }
+
+    // Runs one round. Returns false, without doing anything else, once there is nothing left to do.
+    public boolean step(){
+
+        this.round++;
+
+        // Same stopping conditions as the threaded network
+        if (this.events.isEmpty() && this.senders.isEmpty() && this.roundActions.isEmpty()){
+
+            if (this.failures.size() == 0){
+                return false;
+            }
+
+            this.failNode(this.failures.poll());
+
+            // The ring is repaired before anything else is delivered in this round
+            this.handleEvents();
+        }
+
+        this.doActions();
+        this.deliverMessages();
+        this.handleEvents();
+
+        return true;
+    }
+
+    // Delivers what every sender can send in this round, under the same link rules as the threaded network
+    private void deliverMessages(){
+
+        Iterator<Node> iterator = this.senders.values().iterator();
+        while (iterator.hasNext()){
+
+            Node sender = iterator.next();
+            this.scheduler.collect(sender, (from, message, receiver, queueDepth) -> this.send(from, message, receiver));
+
+            if (!sender.hasOutgoingMessages()){
+                iterator.remove();
+            }
+        }
+
+        this.lastSender = null;
+        this.lastReceiver = null;
+    }
+
+    private void send(Node sender, long message, Node receiver){
+
+        boolean newFrame = !this.batching || sender != this.lastSender || receiver != this.lastReceiver;
+
+        this.lastSender = sender;
+        this.lastReceiver = receiver;
+
+        if (this.schedule(receiver, message)){
+
+            if (newFrame){
+                this.framesDelivered++;
+            }
+
+            if (this.trace != null){
+                this.trace.delivery(this.round, sender, receiver, message);
+            }
+        }
+    }
+
+    // Handles every event of the current round
+    private void handleEvents(){
+
+        while (!this.events.isEmpty() && this.events.peek().round == this.round){
+
+            Event event = this.events.poll();
+            event.receiver.handleMessage(event.message);
+
+            if (event.receiver.hasOutgoingMessages()){
+                this.senders.put(event.receiver.getIndex(), event.receiver);
+            }
+        }
+    }
+
+    // Returns false if the receiver has failed: a failed node drops whatever it receives
+    private boolean schedule(Node receiver, long message){
+
+        if (this.topology.isFailed(receiver.getIndex())){
+            return false;
+        }
+
+        this.messagesDelivered++;
+        this.events.add(new Event(this.round, receiver, message, this.nextSequence++));
+
+        return true;
+    }
+
+    // Same as the threaded network: its neighbours are told, the ring is closed over it and its outgoing messages are dropped
+    private boolean failNode(Node failingNode){
+
+        if (this.topology.isFailed(failingNode.getIndex())){
+            return false;
+        }
+
+        if (this.trace != null){
+            this.trace.crash(this.round, failingNode);
+        }
+
+        for (Node neighbour : failingNode.getNeighbours()){
+            long message = MessageCreator.createFailMessage(failingNode.getNodeId());
+            if (this.schedule(neighbour, message)){
+                this.framesDelivered++;
+
+                if (this.trace != null){
+                    this.trace.delivery(this.round, failingNode, neighbour, message);
+                }
+            }
+        }
+
+        failingNode.setActive(false);
+        this.topology.markFailed(failingNode.getIndex());
+
+        failingNode.dropOutgoingMessages();
+        this.senders.remove(failingNode.getIndex());
+
+        return true;
+    }
+
+    private void doActions(){
+
+        ArrayList<Action> actions = this.roundActions.remove(this.round);
+        if (actions == null){
+            return;
+        }
+
+        // Failures scheduled for this round go first, as in the threaded network
+        boolean failed = false;
+        for (Action action : actions){
+            if (action.getType().equals(MessageCreator.FAIL_TAG)){
+                for (Node node : action.getNodes()){
+                    failed |= this.failNode(node);
+                }
+            }
+        }
+
+        if (failed){
+            this.handleEvents();
+        }
+
+        for (Action action : actions){
+            if (action.getType().equals(MessageCreator.ELECTION_TAG)){
+                for (Node node : action.getNodes()){
+                    node.startLeaderElection();
+                    this.senders.put(node.getIndex(), node);
+
+                    if (this.trace != null){
+                        this.trace.start(this.round, node);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getRound() {
+        return this.round;
+    }
+
+    @Override
+    public int getMessagesDelivered() {
+        return this.messagesDelivered;
+    }
+
+    public int getFramesDelivered() {
+        return this.framesDelivered;
+    }
+
+    @Override
+    public Node getLeader(){
+        for (Node node : this.topology.getNodes()){
+            if (node.isNodeLeader() && !this.topology.isFailed(node.getIndex())){
+                return node;
+            }
+        }
+
+        return null;
+    }
+
+    // A message waiting to be handled by its receiver
+    private static class Event implements Comparable<Event> {
+
+        private final int round;
+        private final Node receiver;
+        private final long message;
+        private final long sequence;
+
+        private Event(int round, Node receiver, long message, long sequence){
+            this.round = round;
+            this.receiver = receiver;
+            this.message = message;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Event other){
+            if (this.round != other.round){
+                return Integer.compare(this.round, other.round);
+            }
+            if (this.receiver.getIndex() != other.receiver.getIndex()){
+                return Integer.compare(this.receiver.getIndex(), other.receiver.getIndex());
+            }
+            return Long.compare(this.sequence, other.sequence);
+        }
+    }
+
+    public static void main(String args[]) throws IOException {
+
+        long startTime = System.nanoTime();
+
+        DiscreteEventSimulator simulator = new DiscreteEventSimulator(args[0], NetworkSettings.fromArgs(args, 1));
+        simulator.run();
+
+        System.out.println(String.format("%d rounds, %d messages in %.3f s",
+                simulator.getRound(), simulator.getMessagesDelivered(), (System.nanoTime() - startTime) / 1e9));
+    }
+}
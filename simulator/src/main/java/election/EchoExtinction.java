@@ -0,0 +1,187 @@
+package election;
+
+import java.util.*;
+
+/*
+Echo with extinction, for general graphs: it uses every link of the topology, not only the ring.
+
+Each candidate starts a wave with its id over all its links. A node joins the largest wave it has seen, remembers
+the neighbour it first heard it from as its parent, and passes it on to all its other neighbours; smaller waves die
+out. Once a node has heard the wave from every neighbour it echoes it back to its parent. The candidate that gets
+the echo of its own wave from all its neighbours is the leader, after about twice the diameter of the graph in rounds.
+Its LEADER message is flooded over all links as well.
+
+Nodes that did not start an election start their own wave when the first one reaches them, so the largest id is
+always elected, as with the ring algorithms.
+*/
+public class EchoExtinction implements ElectionAlgorithm {
+
+    // Number of LEADER messages seen, modulo 8, so that messages of a finished election can be dropped
+    private int epoch;
+
+    private boolean started;
+
+    // Id of the wave the node takes part in, or -1
+    private int wave = -1;
+
+    private int parentId;
+
+    // Messages of the current wave received so far
+    private int received;
+
+    // Neighbours when the node joined the current wave
+    private List<Node> neighbours;
+
+    @Override
+    public void start(Node node){
+
+        if (this.started){
+            return;
+        }
+
+        this.started = true;
+
+        if (this.wave < node.getNodeId()){
+            this.join(node, node.getNodeId(), -1);
+        }
+    }
+
+    @Override
+    public void handleMessage(Node node, long message, boolean fromNext){
+
+        if (MessageCreator.getMessageType(message) != MessageCreator.WAVE || MessageCreator.getEpoch(message) != this.epoch){
+            return;
+        }
+
+        int candidateId = MessageCreator.getCandidateId(message);
+
+        node.getLogger().trace("Node %d received wave with id %d.", node.getNodeId(), candidateId);
+
+        this.start(node);
+
+        if (candidateId > this.wave){
+            this.join(node, candidateId, MessageCreator.getSenderId(message));
+        }
+
+        // Smaller waves die out here
+        if (candidateId == this.wave){
+            this.received++;
+            this.checkComplete(node);
+        }
+    }
+
+    @Override
+    public void leaderElected(Node node, int leaderId){
+
+        this.epoch = (this.epoch + 1) & 7;
+        this.started = false;
+        this.wave = -1;
+        this.neighbours = null;
+    }
+
+    // Epoch and flag, the wave, then the neighbours the node joined it with, as -1 or their number and indexes
+    @Override
+    public void saveState(LongQueue state){
+
+        state.add(this.epoch | (this.started ? 8 : 0));
+        state.add(this.wave);
+        state.add(this.parentId);
+        state.add(this.received);
+
+        if (this.neighbours == null){
+            state.add(-1);
+            return;
+        }
+
+        state.add(this.neighbours.size());
+        for (Node neighbour : this.neighbours){
+            state.add(neighbour.getIndex());
+        }
+    }
+
+    @Override
+    public void restoreState(LongQueue state, Topology topology){
+
+        long flags = state.poll();
+        this.epoch = (int) flags & 7;
+        this.started = (flags & 8) != 0;
+        this.wave = (int) state.poll();
+        this.parentId = (int) state.poll();
+        this.received = (int) state.poll();
+
+        int count = (int) state.poll();
+        if (count < 0){
+            this.neighbours = null;
+            return;
+        }
+
+        this.neighbours = new ArrayList<>(count);
+        for (int i=0; i<count; i++){
+            this.neighbours.add(topology.getNode((int) state.poll()));
+        }
+    }
+
+    // Floods the LEADER message, stamped with the epoch of the election it ends
+    @Override
+    public void announceLeader(Node node, long message){
+
+        message = MessageCreator.withEpoch(message, this.epoch);
+        this.leaderElected(node, node.getNodeId());
+        this.sendToAll(node, message, -1);
+    }
+
+    // The first copy of the LEADER message ends the election and is passed on, the others are dropped
+    @Override
+    public void handleLeaderMessage(Node node, long message){
+
+        if (MessageCreator.getEpoch(message) != this.epoch){
+            return;
+        }
+
+        this.leaderElected(node, MessageCreator.getLeaderIdFromLeaderMessage(message));
+        this.sendToAll(node, message, -1);
+    }
+
+    private void join(Node node, int candidateId, int parentId){
+
+        this.wave = candidateId;
+        this.parentId = parentId;
+        this.received = 0;
+        this.neighbours = node.getNeighbours();
+
+        this.sendToAll(node, this.stamp(MessageCreator.createWaveMessage(candidateId, node.getNodeId())), parentId);
+        this.checkComplete(node);
+    }
+
+    private void checkComplete(Node node){
+
+        if (this.received != this.neighbours.size()){
+            return;
+        }
+
+        if (this.wave == node.getNodeId()){
+            node.becomeLeader(node.getNodeId());
+            return;
+        }
+
+        for (Node neighbour : this.neighbours){
+            if (neighbour.getNodeId() == this.parentId){
+                node.send(this.stamp(MessageCreator.createWaveMessage(this.wave, node.getNodeId())), neighbour);
+            }
+        }
+    }
+
+    private void sendToAll(Node node, long message, int exceptId){
+
+        List<Node> neighbours = this.neighbours != null ? this.neighbours : node.getNeighbours();
+        for (Node neighbour : neighbours){
+            if (neighbour.getNodeId() != exceptId){
+                node.send(message, neighbour);
+            }
+        }
+    }
+
+    private long stamp(long message){
+        return MessageCreator.withEpoch(message, this.epoch);
+    }
+}
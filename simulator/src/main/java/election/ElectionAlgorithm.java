@@ -0,0 +1,60 @@
+package election;
+
+/*
+Election protocol run by a node. Every node has its own instance, which holds the node's election state and is only
+used by the node's thread (or by the discrete-event simulator).
+
+The node handles FAIL messages itself, asks its algorithm through nodeFailed whether to start over, and passes every
+other message on to its algorithm. Whatever the algorithm,
+the winner calls Node.becomeLeader. By default its LEADER message then goes around the ring, but graph algorithms
+can spread it over all links instead.
+*/
+public interface ElectionAlgorithm {
+
+    // The node starts an election, because of an ELECT action or because the leader failed
+    void start(Node node);
+
+    // Handles one election message. fromNext is true if it came from the node's next node, i.e. travelled backwards.
+    void handleMessage(Node node, long message, boolean fromNext);
+
+    // The network took one of the node's outgoing messages
+    default void messageSent(Node node, long message){
+    }
+
+    // A neighbour failed, and the ring has already been closed over it. By default a new election starts only if the
+    // failed node was the leader; an algorithm that can recover from failures in the middle of an election says so here.
+    default void nodeFailed(Node node, Node failed){
+
+        if (failed.isNodeLeader()){
+            this.start(node);
+        }
+    }
+
+    // State of the algorithm, for checkpoints. These are taken between two rounds, while messages may still wait in
+    // the outgoing queues, so everything the algorithm keeps goes in. restoreState reads it back in the same order.
+    default void saveState(LongQueue state){
+    }
+
+    default void restoreState(LongQueue state, Topology topology){
+    }
+
+    // A LEADER message for the given leader reached the node, or came back to the leader itself
+    void leaderElected(Node node, int leaderId);
+
+    // Sends the LEADER message of the node that just won
+    default void announceLeader(Node node, long message){
+        node.send(message);
+    }
+
+    // A LEADER message reached the node. By default it is forwarded until it has made a full round.
+    default void handleLeaderMessage(Node node, long message){
+
+        int leaderId = MessageCreator.getLeaderIdFromLeaderMessage(message);
+
+        this.leaderElected(node, leaderId);
+
+        if (node.getNodeId() != leaderId){
+            node.send(message);
+        }
+    }
+}
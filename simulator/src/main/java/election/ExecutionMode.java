@@ -0,0 +1,69 @@
+package election;
+
+import java.lang.reflect.Method;
+
+// How the network runs the nodes: on a thread of their own, of the kind that can be chosen, or only while they have
+// something to do.
+public enum ExecutionMode {
+
+    // One operating system thread per node
+    PLATFORM,
+
+    // One virtual thread per node, so that a single JVM can simulate hundreds of thousands of nodes. The code is built
+    // for Java 17 and finds virtual threads at run time: on an older JVM the network refuses this mode, and LAZY is
+    // the way to run that many nodes.
+    VIRTUAL,
+
+    // No thread per node: a node is scheduled on a shared pool when a message is delivered to it, and leaves the pool
+    // again once its mailbox is empty, so nodes that have nothing to do cost no thread at all
+    LAZY;
+
+    // Thread.ofVirtual, or null before Java 21. The code is built for Java 17, so it is looked up by reflection.
+    private static final Method OF_VIRTUAL = lookUpVirtualThreads();
+
+    public static boolean hasVirtualThreads(){
+        return OF_VIRTUAL != null;
+    }
+
+    // Whether the nodes run as tasks on a shared pool instead of on a thread each
+    public boolean isPooled(){
+        return this == LAZY;
+    }
+
+    // Fails before any node is started if the mode cannot run on this JVM
+    public void checkAvailable(){
+        if (this == VIRTUAL && !hasVirtualThreads()){
+            throw new IllegalArgumentException("Virtual threads need Java 21 or later, this is Java "
+                    + Runtime.version().feature() + ": use --threads=lazy to run the nodes on a shared pool");
+        }
+    }
+
+    // Only for the modes that are not pooled
+    public Thread newThread(Runnable task, String name){
+
+        if (this != VIRTUAL){
+            return new Thread(task, name);
+        }
+
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Method setName = builderClass.getMethod("name", String.class);
+            Method unstarted = builderClass.getMethod("unstarted", Runnable.class);
+
+            Object builder = OF_VIRTUAL.invoke(null);
+            builder = setName.invoke(builder, name);
+
+            return (Thread) unstarted.invoke(builder, task);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Unable to create a virtual thread", ex);
+        }
+    }
+
+    private static Method lookUpVirtualThreads(){
+        try {
+            return Thread.class.getMethod("ofVirtual");
+        } catch (NoSuchMethodException ex) {
+            return null;
+        }
+    }
+}
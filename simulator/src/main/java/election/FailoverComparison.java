@@ -0,0 +1,133 @@
+package election;
+
+import java.util.*;
+
+/*
+Measures failover under churn with the discrete-event simulator and Chang-Roberts. Every ring is shuffled with a fixed
+seed, and its first node starts an election in round 1. Failures are scheduled with CRASH actions:
+
+- leader: the leader fails once the first election is over
+- churn: the leader and size/100 other random nodes fail in the same round, once the first election is over
+- mid-election: size/100 random nodes, the largest id among them, fail in the middle of the first election
+
+The failover time is the number of rounds from the failures until the largest surviving id knows it is the leader.
+
+Usage: java FailoverComparison [size...]   (default sizes: 1000 10000)
+*/
+public class FailoverComparison {
+
+    public static void main(String args[]) {
+
+        int[] sizes = {1000, 10000};
+        if (args.length > 0){
+            sizes = new int[args.length];
+            for (int i=0; i<args.length; i++){
+                sizes[i] = Integer.valueOf(args[i]);
+            }
+        }
+
+        NetworkSettings settings = new NetworkSettings();
+        settings.setLogLevel(Logger.Level.INFO);
+        settings.setConsoleEcho(false);
+
+        System.out.println(String.format("%-8s %-14s %8s %8s %10s %8s %12s", "size", "scenario", "failed", "crash", "failover", "leader", "messages"));
+
+        for (int size : sizes){
+            for (String scenario : new String[] {"leader", "churn", "mid-election"}){
+
+                Random random = new Random(42);
+                int[] ids = shuffledIds(size, random);
+                Topology topology = ring(ids);
+
+                // The first election needs at most three laps: to the largest id, around once more, and the LEADER lap
+                int crashRound = scenario.equals("mid-election") ? size / 2 : 3 * size + 1;
+
+                Action crash = new Action(MessageCreator.FAIL_TAG);
+                HashSet<Integer> failed = new HashSet<>();
+
+                if (!scenario.equals("mid-election")){
+                    failed.add(size);
+                }
+                if (!scenario.equals("leader")){
+                    failed.add(size);
+                    while (failed.size() < 1 + size / 100){
+                        failed.add(ids[random.nextInt(size)]);
+                    }
+                }
+                for (int id : failed){
+                    crash.addNode(topology.getNodeWithId(id));
+                }
+                topology.addAction(crashRound, crash);
+
+                int expected = size;
+                while (failed.contains(expected)){
+                    expected--;
+                }
+                Node expectedLeader = topology.getNodeWithId(expected);
+
+                DiscreteEventSimulator simulator = new DiscreteEventSimulator(topology, settings);
+
+                // Only the expected leader is checked after each round, so that measuring stays O(1) per round
+                int electedRound = -1;
+                while (simulator.step()){
+                    if (electedRound < 0 && simulator.getRound() >= crashRound && expectedLeader.isNodeLeader()){
+                        electedRound = simulator.getRound();
+                    }
+                }
+
+                if (electedRound < 0){
+                    throw new IllegalStateException("Node " + expected + " was not elected in the " + scenario + " scenario");
+                }
+
+                System.out.println(String.format("%-8d %-14s %8d %8d %10d %8d %12d",
+                        size, scenario, failed.size(), crashRound, electedRound - crashRound, expected, simulator.getMessagesDelivered()));
+            }
+        }
+
+        Logger.getInstance().closeWriter();
+    }
+
+    static int[] shuffledIds(int size, Random random){
+
+        int[] ids = new int[size];
+        for (int i=0; i<size; i++){
+            ids[i] = i + 1;
+        }
+
+        for (int i=size - 1; i>0; i--){
+            int j = random.nextInt(i + 1);
+            int swap = ids[i];
+            ids[i] = ids[j];
+            ids[j] = swap;
+        }
+
+        return ids;
+    }
+
+    // Ring ids[0] -> ids[1] -> ... -> ids[0], where the first node starts an election in the first round
+    static Topology ring(int[] ids){
+
+        Topology topology = new Topology();
+        for (int id : ids){
+            topology.addOrGetNodeWithId(id);
+        }
+
+        for (int i=0; i<ids.length; i++){
+            Node node = topology.getNodeWithId(ids[i]);
+            Node next = topology.getNodeWithId(ids[(i + 1) % ids.length]);
+            Node previous = topology.getNodeWithId(ids[(i + ids.length - 1) % ids.length]);
+
+            node.setNextNode(next);
+            node.setPreviousNode(previous);
+            topology.addNeighbour(node, next);
+            topology.addNeighbour(node, previous);
+        }
+
+        Action elect = new Action(MessageCreator.ELECTION_TAG);
+        elect.addNode(topology.getNodeWithId(ids[0]));
+        topology.addAction(1, elect);
+        topology.compact();
+
+        return topology;
+    }
+}
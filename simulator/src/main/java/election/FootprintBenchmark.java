@@ -0,0 +1,117 @@
+package election;
+
+import java.util.*;
+
+/*
+Compares the heap used by the topology against the structures it replaced: a HashMap<Integer, Node> with an
+ArrayList<Node> of neighbours and next/previous references per node.
+Both sides hold the same Node objects, so the difference is the cost of the graph representation itself.
+Usage: java FootprintBenchmark [nodes] [degree]   (default: 200000 nodes, 10 neighbours each)
+*/
+public class FootprintBenchmark {
+
+    public static void main(String args[]) {
+
+        int size = args.length > 0 ? Integer.valueOf(args[0]) : 200000;
+        int degree = args.length > 1 ? Integer.valueOf(args[1]) : 10;
+
+        long before = usedHeap();
+        Node[] plainNodes = buildNodes(size);
+        long nodeBytes = usedHeap() - before;
+        plainNodes = null;
+
+        before = usedHeap();
+        Map<Integer, ListNode> listNodes = buildLists(size, degree);
+        long listBytes = usedHeap() - before;
+
+        System.out.println(String.format("Node objects alone:  %,d bytes (%.1f per node)", nodeBytes, nodeBytes / (double) size));
+        System.out.println(String.format("HashMap + ArrayList: %,d bytes (%.1f per node without the Node objects)",
+                listBytes, (listBytes - nodeBytes) / (double) size));
+        listNodes = null;
+
+        before = usedHeap();
+        Topology topology = buildTopology(size, degree);
+        long topologyBytes = usedHeap() - before;
+
+        System.out.println(String.format("Dense arrays + CSR:  %,d bytes (%.1f per node without the Node objects)",
+                topologyBytes, (topologyBytes - nodeBytes) / (double) size));
+        System.out.println(String.format("Graph representation is %.1fx smaller (%d nodes, %d edges)",
+                (listBytes - nodeBytes) / (double) (topologyBytes - nodeBytes), topology.size(), (long) size * degree));
+
+        Logger.getInstance().closeWriter();
+    }
+
+    // The layout used before the topology was compacted
+    private static class ListNode {
+        private Node node;
+        private ListNode nextNode;
+        private ListNode previousNode;
+        private List<ListNode> neighbours = new ArrayList<>();
+    }
+
+    private static Node[] buildNodes(int size){
+
+        Topology owner = new Topology();
+        Node[] nodes = new Node[size];
+        for (int i=0; i<size; i++){
+            nodes[i] = new Node(i, i, owner);
+        }
+
+        return nodes;
+    }
+
+    private static Map<Integer, ListNode> buildLists(int size, int degree){
+
+        Topology owner = new Topology();
+        Map<Integer, ListNode> nodes = new HashMap<>();
+        for (int i=0; i<size; i++){
+            ListNode listNode = new ListNode();
+            listNode.node = new Node(i, i, owner);
+            nodes.put(i, listNode);
+        }
+
+        Random random = new Random(1);
+        for (int i=0; i<size; i++){
+            ListNode listNode = nodes.get(i);
+            listNode.nextNode = nodes.get((i + 1) % size);
+            listNode.previousNode = nodes.get((i + size - 1) % size);
+            for (int d=0; d<degree; d++){
+                listNode.neighbours.add(nodes.get(random.nextInt(size)));
+            }
+        }
+
+        return nodes;
+    }
+
+    private static Topology buildTopology(int size, int degree){
+
+        Topology topology = new Topology();
+        for (int i=0; i<size; i++){
+            topology.addOrGetNodeWithId(i);
+        }
+
+        Random random = new Random(1);
+        for (int i=0; i<size; i++){
+            Node node = topology.getNode(i);
+            node.setNextNode(topology.getNode((i + 1) % size));
+            node.setPreviousNode(topology.getNode((i + size - 1) % size));
+            for (int d=0; d<degree; d++){
+                topology.addNeighbour(node, topology.getNode(random.nextInt(size)));
+            }
+        }
+
+        topology.compact();
+
+        return topology;
+    }
+
+    private static long usedHeap(){
+
+        Runtime runtime = Runtime.getRuntime();
+        for (int i=0; i<3; i++){
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
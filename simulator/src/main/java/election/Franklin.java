@@ -0,0 +1,132 @@
+package election;
+
+/*
+Franklin: in each phase an active node sends a CANDIDATE message with its id both ways, and waits for the id of the
+nearest active node on each side. Passive nodes relay. An active node stays active only if its id is larger than
+both ids it received, so at least half of the active nodes drop out in every phase. A node that receives its own
+id from both sides is the only one left and becomes the leader.
+
+Nodes that did not start an election become active when the first CANDIDATE message reaches them, so the largest id
+is always elected, as with Chang-Roberts.
+*/
+public class Franklin implements ElectionAlgorithm {
+
+    // Number of LEADER messages seen, modulo 8, so that messages of a finished election can be dropped
+    private int epoch;
+
+    private boolean started;
+
+    private boolean active;
+
+    private int phase;
+
+    // CANDIDATE messages received while active and not yet compared, per side. Links keep their order, so the heads
+    // of both queues always belong to the same phase.
+    private final LongQueue fromNext = new LongQueue();
+
+    private final LongQueue fromPrevious = new LongQueue();
+
+    @Override
+    public void start(Node node){
+
+        if (this.started){
+            return;
+        }
+
+        this.started = true;
+        this.active = true;
+        this.phase = 0;
+        this.sendCandidates(node);
+    }
+
+    @Override
+    public void handleMessage(Node node, long message, boolean fromNext){
+
+        if (MessageCreator.getMessageType(message) != MessageCreator.CANDIDATE
+                || MessageCreator.getEpoch(message) != this.epoch){
+            return;
+        }
+
+        int id = node.getNodeId();
+
+        node.getLogger().trace("Node %d received candidate with id %d.", id, MessageCreator.getCandidateId(message));
+
+        this.start(node);
+
+        if (!this.active){
+            node.send(message, fromNext);
+            return;
+        }
+
+        (fromNext ? this.fromNext : this.fromPrevious).add(message);
+
+        while (this.active && !this.fromNext.isEmpty() && !this.fromPrevious.isEmpty()){
+
+            int nextId = MessageCreator.getCandidateId(this.fromNext.poll());
+            int previousId = MessageCreator.getCandidateId(this.fromPrevious.poll());
+
+            if (nextId == id && previousId == id){
+                this.active = false;
+                node.becomeLeader(id);
+            }else if (nextId > id || previousId > id){
+                this.becomePassive(node);
+            }else{
+                this.phase++;
+                this.sendCandidates(node);
+            }
+        }
+    }
+
+    @Override
+    public void leaderElected(Node node, int leaderId){
+
+        this.epoch = (this.epoch + 1) & 7;
+        this.started = false;
+        this.active = false;
+        this.fromNext.clear();
+        this.fromPrevious.clear();
+    }
+
+    // Epoch and flags, phase, then the CANDIDATE messages waiting on both sides
+    @Override
+    public void saveState(LongQueue state){
+        state.add(this.epoch | (this.started ? 8 : 0) | (this.active ? 16 : 0));
+        state.add(this.phase);
+        Checkpoint.saveQueue(state, this.fromNext);
+        Checkpoint.saveQueue(state, this.fromPrevious);
+    }
+
+    @Override
+    public void restoreState(LongQueue state, Topology topology){
+
+        long flags = state.poll();
+        this.epoch = (int) flags & 7;
+        this.started = (flags & 8) != 0;
+        this.active = (flags & 16) != 0;
+        this.phase = (int) state.poll();
+
+        Checkpoint.restoreQueue(state, this.fromNext);
+        Checkpoint.restoreQueue(state, this.fromPrevious);
+    }
+
+    // Messages that arrived for later phases belong to the neighbours' next candidates, so they are passed on
+    private void becomePassive(Node node){
+
+        this.active = false;
+
+        while (!this.fromNext.isEmpty()){
+            node.send(this.fromNext.poll(), true);
+        }
+
+        while (!this.fromPrevious.isEmpty()){
+            node.send(this.fromPrevious.poll(), false);
+        }
+    }
+
+    private void sendCandidates(Node node){
+
+        long candidate = MessageCreator.withEpoch(MessageCreator.createCandidateMessage(node.getNodeId(), this.phase), this.epoch);
+        node.send(candidate, false);
+        node.send(candidate, true);
+    }
+}
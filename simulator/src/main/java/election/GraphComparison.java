@@ -0,0 +1,129 @@
+package election;
+
+import java.io.*;
+import java.util.*;
+
+/*
+Compares the ring algorithms with echo with extinction, which uses every link of the graph, on the same topologies.
+For each run it reports the round in which the first leader was elected, the total number of rounds until the
+network was quiet (including the LEADER announcement, the failures and the later elections) and the messages.
+
+The topologies are the given input files, then random graphs: a ring with shuffled ids, plus the given number of
+random chords per node, and a single election started in round 1 by a random node.
+
+Usage: java GraphComparison [input file...] [--sizes=1000,10000] [--chords=2] [--seed=42]
+*/
+public class GraphComparison {
+
+    private static final Algorithm[] ALGORITHMS = {Algorithm.CHANG_ROBERTS, Algorithm.FRANKLIN, Algorithm.ECHO_EXTINCTION};
+
+    public static void main(String args[]) throws IOException {
+
+        ArrayList<String> files = new ArrayList<>();
+        int[] sizes = {1000, 10000};
+        int chords = 2;
+        long seed = 42;
+
+        for (String arg : args){
+            if (arg.startsWith("--sizes=")){
+                String[] parts = arg.substring(8).split(",");
+                sizes = new int[parts.length];
+                for (int i=0; i<parts.length; i++){
+                    sizes[i] = Integer.valueOf(parts[i]);
+                }
+            }else if (arg.startsWith("--chords=")){
+                chords = Integer.valueOf(arg.substring(9));
+            }else if (arg.startsWith("--seed=")){
+                seed = Long.valueOf(arg.substring(7));
+            }else{
+                files.add(arg);
+            }
+        }
+
+        System.out.println(String.format("%-32s %-16s %12s %8s %12s", "topology", "algorithm", "first_leader", "rounds", "messages"));
+
+        for (String file : files){
+            for (Algorithm algorithm : ALGORITHMS){
+                run(file, MappedTopologyParser.parse(file), algorithm);
+            }
+        }
+
+        for (int size : sizes){
+            for (Algorithm algorithm : ALGORITHMS){
+                run(String.format("random n=%d c=%d", size, chords), randomGraph(size, chords, seed), algorithm);
+            }
+        }
+    }
+
+    private static void run(String name, Topology topology, Algorithm algorithm){
+
+        NetworkSettings settings = new NetworkSettings();
+        settings.setAlgorithm(algorithm);
+        settings.setLogLevel(Logger.Level.INFO);
+        settings.setConsoleEcho(false);
+
+        DiscreteEventSimulator simulator = new DiscreteEventSimulator(topology, settings);
+
+        int firstLeaderRound = -1;
+        while (simulator.step()){
+            if (firstLeaderRound < 0 && simulator.getLeader() != null){
+                firstLeaderRound = simulator.getRound();
+            }
+        }
+
+        Logger.getInstance().closeWriter();
+
+        System.out.println(String.format("%-32s %-16s %12d %8d %12d",
+                name, algorithm, firstLeaderRound, simulator.getRound(), simulator.getMessagesDelivered()));
+    }
+
+    // Ring through all nodes in a random order, plus chords between random pairs of nodes
+    private static Topology randomGraph(int size, int chords, long seed){
+
+        Random random = new Random(seed);
+
+        int[] ids = new int[size];
+        for (int i=0; i<size; i++){
+            ids[i] = i + 1;
+        }
+        for (int i=size - 1; i>0; i--){
+            int j = random.nextInt(i + 1);
+            int swap = ids[i];
+            ids[i] = ids[j];
+            ids[j] = swap;
+        }
+
+        Topology topology = new Topology();
+        for (int id : ids){
+            topology.addOrGetNodeWithId(id);
+        }
+
+        for (int i=0; i<size; i++){
+            Node node = topology.getNodeWithId(ids[i]);
+            Node next = topology.getNodeWithId(ids[(i + 1) % size]);
+
+            node.setNextNode(next);
+            next.setPreviousNode(node);
+            topology.addNeighbour(node, next);
+            topology.addNeighbour(next, node);
+        }
+
+        for (int i=0; i<size * chords / 2; i++){
+            Node node = topology.getNodeWithId(ids[random.nextInt(size)]);
+            Node other = topology.getNodeWithId(ids[random.nextInt(size)]);
+
+            if (node != other){
+                topology.addNeighbour(node, other);
+                topology.addNeighbour(other, node);
+            }
+        }
+
+        Action elect = new Action(MessageCreator.ELECTION_TAG);
+        elect.addNode(topology.getNodeWithId(ids[random.nextInt(size)]));
+        topology.addAction(1, elect);
+
+        topology.compact();
+
+        return topology;
+    }
+}
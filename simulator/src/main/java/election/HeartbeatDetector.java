@@ -0,0 +1,170 @@
+package election;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/*
+Failure detector of one node, enabled with --heartbeat=<period>. Without it the network tells the neighbours of a
+failed node right away. With it a failed node just stops: every period rounds each node sends a HEARTBEAT to every
+neighbour it watches, its ring links included, and counts for each of them the rounds it has not heard from it. Once
+a neighbour has been silent for more than --suspect-after rounds (three periods by default) the node suspects it, and
+has the ring closed over it at the start of the next round, whether it crashed or not. Every node that watches it,
+the suspecting one included, then handles its failure like a FAIL message at its next tick. Which nodes suspected it
+first in a round does not matter, so a run does not depend on the order the nodes are ticked in, or on how they are
+split between processes.
+
+The heartbeats are real messages: they go through the node's heartbeatMessages queue and take one message of the
+capacity of their link in the round they are sent, ahead of the election messages. They are not counted by the
+termination detector, since they never stop.
+
+The network ticks the detector of every node once per round on its own thread, before it collects the messages of
+the round, and the node calls heard on its thread as it handles its heartbeats. This is only safe in logical rounds:
+there the round barrier keeps the two apart, and hands the detector over from one thread to the other, so heartbeats
+are refused with --rounds=sleep.
+*/
+public class HeartbeatDetector {
+
+    private final Topology topology;
+
+    private final int period;
+
+    private final int timeout;
+
+    // Closes the ring over a suspected neighbour at the start of the next round
+    private final Consumer<Node> suspect;
+
+    // Node indexes of the watched neighbours, and the rounds since each was last heard from
+    private int[] watched = new int[2];
+    private int[] missed = new int[2];
+    private int count;
+
+    private boolean started;
+
+    public HeartbeatDetector(Topology topology, int period, int timeout, Consumer<Node> suspect){
+
+        if (period < 1 || timeout < period){
+            throw new IllegalArgumentException("The heartbeat period must be at least 1 round, and the timeout at least one period");
+        }
+
+        this.topology = topology;
+        this.period = period;
+        this.timeout = timeout;
+        this.suspect = suspect;
+    }
+
+    // Counts one more silent round for every watched neighbour, handles the ones the ring was closed over, suspects the
+    // ones that just timed out and sends the heartbeats that are due. Returns true if the node found out about a
+    // failure, which it handles on its own thread.
+    public boolean tick(Node node, int round){
+
+        int index = node.getIndex();
+
+        if (!this.started){
+            for (Node neighbour : node.getNeighbours()){
+                this.watch(index, neighbour.getIndex());
+            }
+            this.started = true;
+        }
+
+        boolean failures = false;
+        int k = 0;
+        while (k < this.count){
+
+            int neighbour = this.watched[k];
+
+            if (this.topology.isFailed(neighbour)){
+
+                // The ring was closed over it at the start of the round
+                this.unwatch(k);
+                node.neighbourFailed(this.topology.getNode(neighbour));
+                failures = true;
+
+            }else if (++this.missed[k] == this.timeout + 1){
+
+                node.getLogger().debug("Node %d SUSPECTED", this.topology.getNode(neighbour).getNodeId());
+                this.suspect.accept(this.topology.getNode(neighbour));
+                k++;
+
+            }else{
+                k++;
+            }
+        }
+
+        // A repaired ring brings new ring neighbours, which get a full timeout of their own
+        this.watch(index, this.topology.getNext(index));
+        this.watch(index, this.topology.getPrevious(index));
+
+        if (round % this.period == 0){
+            for (int i=0; i<this.count; i++){
+                node.sendHeartbeat(this.watched[i]);
+            }
+        }
+
+        return failures;
+    }
+
+    // For checkpoints: whether it started, then the watched neighbours and their silent rounds
+    public void saveState(LongQueue state){
+
+        state.add(this.started ? this.count : -1);
+        for (int i=0; i<this.count; i++){
+            state.add(this.watched[i]);
+            state.add(this.missed[i]);
+        }
+    }
+
+    public void restoreState(LongQueue state){
+
+        int count = (int) state.poll();
+        this.started = count >= 0;
+        this.count = Math.max(count, 0);
+
+        if (this.count > this.watched.length){
+            this.watched = new int[this.count];
+            this.missed = new int[this.count];
+        }
+
+        for (int i=0; i<this.count; i++){
+            this.watched[i] = (int) state.poll();
+            this.missed[i] = (int) state.poll();
+        }
+    }
+
+    // Called by the node for every heartbeat it handles
+    public void heard(int neighbour){
+        for (int i=0; i<this.count; i++){
+            if (this.watched[i] == neighbour){
+                this.missed[i] = 0;
+                return;
+            }
+        }
+    }
+
+    private void watch(int index, int neighbour){
+
+        if (neighbour < 0 || neighbour == index || this.topology.isFailed(neighbour)){
+            return;
+        }
+
+        for (int i=0; i<this.count; i++){
+            if (this.watched[i] == neighbour){
+                return;
+            }
+        }
+
+        if (this.count == this.watched.length){
+            this.watched = Arrays.copyOf(this.watched, this.count * 2);
+            this.missed = Arrays.copyOf(this.missed, this.count * 2);
+        }
+
+        this.watched[this.count] = neighbour;
+        this.missed[this.count] = 0;
+        this.count++;
+    }
+
+    private void unwatch(int k){
+        this.count--;
+        this.watched[k] = this.watched[this.count];
+        this.missed[k] = this.missed[this.count];
+    }
+}
@@ -0,0 +1,148 @@
+package election;
+
+import java.util.*;
+
+/*
+What the network measures about its heartbeat failure detectors, see HeartbeatDetector. The network records when it
+crashes a node and the first suspicion of every node, and the leader listener of every node records when a failed
+leader has been replaced. None of this is seen by the nodes, and none of it decides anything: the detectors have the
+ring closed over whatever they suspect.
+
+Per failure it measures the rounds until the failure was detected and, for a failed leader, the rounds from the
+detection until a new leader was elected. It also counts the suspicions of nodes that had not crashed, and the
+heartbeats delivered.
+*/
+public class HeartbeatStats {
+
+    // Node index -> round the node crashed, until its failure is detected
+    private final HashMap<Integer, Integer> crashedAt = new HashMap<>();
+
+    private long heartbeats;
+
+    private int detections;
+    private long detectionRounds;
+    private int maxDetectionRounds;
+
+    private int falseSuspicions;
+
+    // Round a failed leader was detected, -1 unless a new leader is awaited
+    private int leaderDetectedAt = -1;
+    private int reelections;
+    private long reelectionRounds;
+
+    // A node stopped without telling anyone. Returns false if it has no neighbour left that could notice.
+    public synchronized boolean crashed(Node node, int round){
+
+        if (node.getNeighbours().isEmpty()){
+            return false;
+        }
+
+        this.crashedAt.put(node.getIndex(), round);
+
+        return true;
+    }
+
+    // Whether a failure has not been detected yet
+    public synchronized boolean hasUndetected(){
+        return !this.crashedAt.isEmpty();
+    }
+
+    // First suspicion of a node, by any detector
+    public synchronized void detected(Node node, int round){
+
+        Integer crashRound = this.crashedAt.remove(node.getIndex());
+        if (crashRound == null){
+            this.falseSuspicions++;
+            return;
+        }
+
+        int latency = round - crashRound;
+        this.detections++;
+        this.detectionRounds += latency;
+        this.maxDetectionRounds = Math.max(this.maxDetectionRounds, latency);
+
+        if (node.isNodeLeader() && this.leaderDetectedAt < 0){
+            this.leaderDetectedAt = round;
+        }
+    }
+
+    // Called when a node becomes leader
+    public synchronized void leaderElected(int round){
+
+        if (this.leaderDetectedAt >= 0){
+            this.reelections++;
+            this.reelectionRounds += round - this.leaderDetectedAt;
+            this.leaderDetectedAt = -1;
+        }
+    }
+
+    // For checkpoints: the counters, then the failures not detected yet with their rounds
+    public synchronized void saveState(LongQueue state){
+
+        state.add(this.heartbeats);
+        state.add(this.detections);
+        state.add(this.detectionRounds);
+        state.add(this.maxDetectionRounds);
+        state.add(this.falseSuspicions);
+        state.add(this.leaderDetectedAt);
+        state.add(this.reelections);
+        state.add(this.reelectionRounds);
+
+        state.add(this.crashedAt.size());
+        for (Map.Entry<Integer, Integer> entry : this.crashedAt.entrySet()){
+            state.add(entry.getKey());
+            state.add(entry.getValue());
+        }
+    }
+
+    public synchronized void restoreState(LongQueue state){
+
+        this.heartbeats = state.poll();
+        this.detections = (int) state.poll();
+        this.detectionRounds = state.poll();
+        this.maxDetectionRounds = (int) state.poll();
+        this.falseSuspicions = (int) state.poll();
+        this.leaderDetectedAt = (int) state.poll();
+        this.reelections = (int) state.poll();
+        this.reelectionRounds = state.poll();
+
+        for (long i=state.poll(); i>0; i--){
+            int index = (int) state.poll();
+            this.crashedAt.put(index, (int) state.poll());
+        }
+    }
+
+    public void heartbeatsDelivered(long heartbeats){
+        this.heartbeats += heartbeats;
+    }
+
+    public long getHeartbeats(){
+        return this.heartbeats;
+    }
+
+    public int getDetections(){
+        return this.detections;
+    }
+
+    public double getMeanDetectionRounds(){
+        return this.detections == 0 ? 0 : this.detectionRounds / (double) this.detections;
+    }
+
+    public int getMaxDetectionRounds(){
+        return this.maxDetectionRounds;
+    }
+
+    public int getFalseSuspicions(){
+        return this.falseSuspicions;
+    }
+
+    public double getMeanReelectionRounds(){
+        return this.reelections == 0 ? 0 : this.reelectionRounds / (double) this.reelections;
+    }
+
+    @Override
+    public String toString(){
+        return String.format("%d failures detected after %.1f rounds on average (at most %d), %d false suspicions, leader re-elected %.1f rounds after detection, %d heartbeats",
+                this.detections, this.getMeanDetectionRounds(), this.maxDetectionRounds, this.falseSuspicions, this.getMeanReelectionRounds(), this.heartbeats);
+    }
+}
@@ -0,0 +1,305 @@
+package election;
+
+/*
+Election for very large rings, on a ring cut into k segments by Topology.segment (--segments=k):
+
+1. Chang-Roberts inside every segment, over the segment's own ring, elects a local leader, which sends its id on to
+   the head of the segment (LOCAL_LEADER)
+2. the heads run Chang-Roberts over the overlay ring with the ids of their local leaders (OVERLAY). The candidate that
+   comes back to the head it started from is the largest id of all.
+3. that head sends the leader around the overlay (ANNOUNCE), and every head passes it through its segment as a LEADER
+   message, until it comes back to the head. The winner calls becomeLeader when the LEADER message reaches it.
+
+A head wakes the next heads up (WAKE) as soon as an election reaches it, and a woken head starts an election in its
+segment, so that all segments elect their local leaders at the same time. An election takes about n/k + k rounds,
+instead of at least 2n when the messages have to go around the whole ring. A head that gets a candidate before the
+local leader of its segment is known keeps the largest one until then.
+
+Failures are handled as in Chang-Roberts: the neighbours of a failed node that take part in the election start over in
+a new epoch, which spreads through the segments with the ELECT messages and over the overlay with WAKE. A failed head
+hands its segment over to the next node, so losing a local leader, a head or the leader only costs a new election.
+*/
+public class Hierarchical implements ElectionAlgorithm {
+
+    // Bumped, modulo 8, each time an election is started over because of a failure
+    private int epoch;
+
+    // Chang-Roberts inside the segment
+    private boolean participant = false;
+
+    // Only used by heads: whether the election reached the segment, the local leader once it is known, and the
+    // largest candidate that came over the overlay before that
+    private boolean awake = false;
+    private int localLeader = -1;
+    private int pending = -1;
+
+    @Override
+    public void start(Node node){
+
+        if (node.isSegmentHead()){
+            this.wake(node, false);
+        }
+
+        this.participant = true;
+        this.sendInSegment(node, this.stamp(MessageCreator.createElectMessage(node.getNodeId(), node.getNodeId())));
+    }
+
+    // Starts over if the leader failed, or if an election this node took part in may have lost a message
+    @Override
+    public void nodeFailed(Node node, Node failed){
+
+        if (failed.isNodeLeader() || this.participant || this.awake){
+            this.newEpoch((this.epoch + 1) & 7);
+            this.start(node);
+        }
+    }
+
+    @Override
+    public void handleMessage(Node node, long message, boolean fromNext){
+
+        if (!this.isCurrent(message)){
+            return;
+        }
+
+        int type = MessageCreator.getMessageType(message);
+
+        switch (type){
+
+            case MessageCreator.ELECTION:
+                this.handleElect(node, message);
+                break;
+
+            case MessageCreator.LOCAL_LEADER:
+                if (node.isSegmentHead()){
+                    this.localLeaderFound(node, MessageCreator.getCandidateId(message));
+                }else{
+                    this.sendInSegment(node, message);
+                }
+                break;
+
+            default:
+                // Overlay messages for a head that failed in the meantime are dropped with it
+                if (!node.isSegmentHead()){
+                    return;
+                }
+
+                if (type == MessageCreator.WAKE){
+                    this.wake(node, true);
+                }else if (type == MessageCreator.OVERLAY){
+                    this.handleCandidate(node, MessageCreator.getCandidateId(message));
+                }else if (type == MessageCreator.ANNOUNCE){
+                    this.handleAnnounce(node, message);
+                }
+        }
+    }
+
+    private void handleElect(Node node, long message){
+
+        // The election reached the segment
+        if (node.isSegmentHead()){
+            this.wake(node, false);
+        }
+
+        int id = node.getNodeId();
+        int electionInitializerId = MessageCreator.getInitializerIdFromElectMessage(message);
+        int incomingId = MessageCreator.getMaximumIdFromElectMessage(message);
+
+        node.getLogger().trace("Node %d received election message with id %d.", id, incomingId);
+
+        if (!this.participant){
+
+            this.participant = true;
+
+            // Send the larger ID
+            if (id > incomingId){
+                this.sendInSegment(node, this.stamp(MessageCreator.createElectMessage(electionInitializerId, id)));
+            }else{
+                this.sendInSegment(node, message);
+            }
+        }else if (incomingId == id){
+
+            // This node has the largest id of its segment
+            if (node.isSegmentHead()){
+                this.localLeaderFound(node, id);
+            }else{
+                this.sendInSegment(node, this.stamp(MessageCreator.createLocalLeaderMessage(id)));
+            }
+        }else if (incomingId > id){
+            this.sendInSegment(node, message);
+        }
+    }
+
+    // The head knows its local leader: it becomes the head's candidate on the overlay, along with a larger candidate
+    // that was waiting for it
+    private void localLeaderFound(Node node, int leaderId){
+
+        this.localLeader = leaderId;
+
+        int waiting = this.pending;
+        this.pending = -1;
+
+        this.sendOverlay(node, this.stamp(MessageCreator.createOverlayMessage(leaderId)));
+
+        if (waiting > leaderId){
+            this.sendOverlay(node, this.stamp(MessageCreator.createOverlayMessage(waiting)));
+        }
+    }
+
+    private void handleCandidate(Node node, int candidateId){
+
+        this.wake(node, true);
+
+        if (this.localLeader < 0){
+            this.pending = Math.max(this.pending, candidateId);
+            return;
+        }
+
+        if (candidateId == this.localLeader){
+            this.won(node, candidateId);
+        }else if (candidateId > this.localLeader){
+            this.sendOverlay(node, this.stamp(MessageCreator.createOverlayMessage(candidateId)));
+        }
+    }
+
+    // The candidate of this head went around the overlay: its local leader is the leader
+    private void won(Node node, int leaderId){
+
+        Node next = node.getOverlayNext();
+        if (next != node){
+            node.send(this.stamp(MessageCreator.createAnnounceMessage(node.getNodeId(), leaderId)), next);
+        }
+
+        this.handleLeaderMessage(node, this.stamp(MessageCreator.createLeaderMessage(node.getNodeId(), leaderId)));
+    }
+
+    // Passed on until the next head is the one that sent it
+    private void handleAnnounce(Node node, long message){
+
+        int headId = MessageCreator.getCandidateId(message);
+        int leaderId = MessageCreator.getLeaderIdFromLeaderMessage(message);
+
+        Node next = node.getOverlayNext();
+        if (next != node && next.getNodeId() != headId){
+            node.send(message, next);
+        }
+
+        this.handleLeaderMessage(node, this.stamp(MessageCreator.createLeaderMessage(headId, leaderId)));
+    }
+
+    // Once per election: wakes the next heads up, and starts an election in the segment if it has none yet
+    private void wake(Node node, boolean startSegment){
+
+        if (this.awake){
+            return;
+        }
+
+        this.awake = true;
+        this.sendOverlay(node, this.stamp(MessageCreator.createWakeMessage(node.getNodeId())));
+
+        if (startSegment && !this.participant){
+            this.start(node);
+        }
+    }
+
+    // The LEADER message goes through the segment, from its head or from the leader, until the next node is a head
+    @Override
+    public void handleLeaderMessage(Node node, long message){
+
+        if (!this.isCurrent(message)){
+            return;
+        }
+
+        int leaderId = MessageCreator.getLeaderIdFromLeaderMessage(message);
+
+        this.leaderElected(node, leaderId);
+
+        if (node.getNodeId() == leaderId){
+            node.becomeLeader(MessageCreator.getInitializerIdFromLeaderMessage(message));
+        }
+
+        Node next = node.getSegmentNext();
+        if (!next.isSegmentHead()){
+            node.send(message, next);
+        }
+    }
+
+    // The LEADER message is already on its way through the segments when the leader learns that it won
+    @Override
+    public void announceLeader(Node node, long message){
+    }
+
+    @Override
+    public void leaderElected(Node node, int leaderId){
+        this.participant = false;
+        this.awake = false;
+        this.localLeader = -1;
+        this.pending = -1;
+    }
+
+    // Epoch and flags, then the local leader and the candidate waiting for it
+    @Override
+    public void saveState(LongQueue state){
+        state.add(this.epoch | (this.participant ? 8 : 0) | (this.awake ? 16 : 0));
+        state.add(this.localLeader);
+        state.add(this.pending);
+    }
+
+    @Override
+    public void restoreState(LongQueue state, Topology topology){
+
+        long flags = state.poll();
+        this.epoch = (int) flags & 7;
+        this.participant = (flags & 8) != 0;
+        this.awake = (flags & 16) != 0;
+        this.localLeader = (int) state.poll();
+        this.pending = (int) state.poll();
+    }
+
+    // Drops the messages of an older epoch, and starts over on the first message of a newer one
+    private boolean isCurrent(long message){
+
+        int age = (MessageCreator.getEpoch(message) - this.epoch) & 7;
+        if (age > 4){
+            return false;
+        }
+
+        if (age != 0){
+            this.newEpoch(MessageCreator.getEpoch(message));
+        }
+
+        return true;
+    }
+
+    private void newEpoch(int epoch){
+        this.epoch = epoch;
+        this.participant = false;
+        this.awake = false;
+        this.localLeader = -1;
+        this.pending = -1;
+    }
+
+    private long stamp(long message){
+        return MessageCreator.withEpoch(message, this.epoch);
+    }
+
+    // A segment or overlay of a single node is handled on the spot
+    private void sendInSegment(Node node, long message){
+
+        Node next = node.getSegmentNext();
+        if (next == node){
+            this.handleMessage(node, message, false);
+        }else{
+            node.send(message, next);
+        }
+    }
+
+    private void sendOverlay(Node node, long message){
+
+        Node next = node.getOverlayNext();
+        if (next == node){
+            this.handleMessage(node, message, false);
+        }else{
+            node.send(message, next);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package election;
+
+/*
+Hirschberg-Sinclair: in phase k a candidate sends a PROBE both ways, which travels up to 2^k hops unless it meets a
+larger id. A PROBE that makes all its hops turns into a REPLY that comes back to the candidate, and a candidate that
+gets both replies goes on to the next phase. A candidate whose probe comes all the way around the ring is the leader.
+
+Nodes that did not start an election join it when they see a smaller id, so the largest id is always elected, as
+with Chang-Roberts. Hop counts are limited to MessageCreator.MAX_HOPS, so rings can have up to 2^21 nodes.
+*/
+public class HirschbergSinclair implements ElectionAlgorithm {
+
+    // Number of LEADER messages seen, modulo 8, so that messages of a finished election can be dropped
+    private int epoch;
+
+    // Took part in the current election, as a candidate or by relaying a larger id
+    private boolean started;
+
+    private boolean candidate;
+
+    private int phase;
+
+    // Replies received in the current phase
+    private int replies;
+
+    // Own probes that came all the way around the ring
+    private int probesBack;
+
+    @Override
+    public void start(Node node){
+
+        if (this.started){
+            return;
+        }
+
+        this.started = true;
+        this.candidate = true;
+        this.phase = 0;
+        this.replies = 0;
+        this.sendProbes(node);
+    }
+
+    @Override
+    public void handleMessage(Node node, long message, boolean fromNext){
+
+        if (MessageCreator.getEpoch(message) != this.epoch){
+            return;
+        }
+
+        int id = node.getNodeId();
+        int candidateId = MessageCreator.getCandidateId(message);
+        int phase = MessageCreator.getPhase(message);
+
+        switch (MessageCreator.getMessageType(message)){
+
+            case MessageCreator.PROBE:
+
+                node.getLogger().trace("Node %d received probe with id %d.", id, candidateId);
+
+                if (candidateId == id){
+
+                    // Wait for both probes, so that nothing of this election is left in flight
+                    this.probesBack++;
+                    if (this.probesBack == 2){
+                        this.candidate = false;
+                        node.becomeLeader(id);
+                    }
+                }else if (candidateId < id){
+
+                    // Swallow the smaller id, and compete ourselves if we have not done so yet
+                    this.start(node);
+                }else{
+                    this.started = true;
+                    this.candidate = false;
+
+                    int hops = MessageCreator.getHops(message);
+                    if (hops < (1 << phase)){
+                        node.send(this.stamp(MessageCreator.createProbeMessage(candidateId, phase, hops + 1)), fromNext);
+                    }else{
+                        node.send(this.stamp(MessageCreator.createReplyMessage(candidateId, phase)), !fromNext);
+                    }
+                }
+
+                break;
+
+            case MessageCreator.REPLY:
+
+                if (candidateId != id){
+                    node.send(message, fromNext);
+                }else if (this.candidate && phase == this.phase){
+                    this.replies++;
+
+                    if (this.replies == 2){
+                        this.phase++;
+                        this.replies = 0;
+                        this.sendProbes(node);
+                    }
+                }
+        }
+    }
+
+    @Override
+    public void leaderElected(Node node, int leaderId){
+
+        this.epoch = (this.epoch + 1) & 7;
+        this.started = false;
+        this.candidate = false;
+        this.probesBack = 0;
+    }
+
+    // Epoch and flags, then the phase and what came back of its probes
+    @Override
+    public void saveState(LongQueue state){
+        state.add(this.epoch | (this.started ? 8 : 0) | (this.candidate ? 16 : 0));
+        state.add(this.phase);
+        state.add(this.replies);
+        state.add(this.probesBack);
+    }
+
+    @Override
+    public void restoreState(LongQueue state, Topology topology){
+
+        long flags = state.poll();
+        this.epoch = (int) flags & 7;
+        this.started = (flags & 8) != 0;
+        this.candidate = (flags & 16) != 0;
+        this.phase = (int) state.poll();
+        this.replies = (int) state.poll();
+        this.probesBack = (int) state.poll();
+    }
+
+    private void sendProbes(Node node){
+
+        long probe = this.stamp(MessageCreator.createProbeMessage(node.getNodeId(), this.phase, 1));
+        node.send(probe, false);
+        node.send(probe, true);
+    }
+
+    private long stamp(long message){
+        return MessageCreator.withEpoch(message, this.epoch);
+    }
+}
@@ -0,0 +1,91 @@
+package election;
+
+import java.util.Arrays;
+
+// Open-addressing map from non-negative int keys to int values, used to turn node ids into dense indices without boxing
+public class IntIndexMap {
+
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+
+    private int[] values;
+
+    private int size;
+
+    public IntIndexMap(){
+        this(16);
+    }
+
+    public IntIndexMap(int expectedSize){
+
+        int capacity = Integer.highestOneBit(Math.max(expectedSize * 2, 16) - 1) << 1;
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+        Arrays.fill(this.keys, EMPTY);
+    }
+
+    // Returns the value stored for the key, or -1 if there is none
+    public int get(int key){
+
+        int mask = this.keys.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask){
+            if (this.keys[slot] == key){
+                return this.values[slot];
+            }
+            if (this.keys[slot] == EMPTY){
+                return -1;
+            }
+        }
+    }
+
+    public void put(int key, int value){
+
+        if (key < 0){
+            throw new IllegalArgumentException("Keys must not be negative: " + key);
+        }
+
+        if ((this.size + 1) * 2 > this.keys.length){
+            this.grow();
+        }
+
+        int mask = this.keys.length - 1;
+        int slot = hash(key) & mask;
+        while (this.keys[slot] != EMPTY && this.keys[slot] != key){
+            slot = (slot + 1) & mask;
+        }
+
+        if (this.keys[slot] == EMPTY){
+            this.size++;
+        }
+
+        this.keys[slot] = key;
+        this.values[slot] = value;
+    }
+
+    public int size(){
+        return this.size;
+    }
+
+    private void grow(){
+
+        int[] oldKeys = this.keys;
+        int[] oldValues = this.values;
+
+        this.keys = new int[oldKeys.length * 2];
+        this.values = new int[oldValues.length * 2];
+        Arrays.fill(this.keys, EMPTY);
+        this.size = 0;
+
+        for (int i=0; i<oldKeys.length; i++){
+            if (oldKeys[i] != EMPTY){
+                this.put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int hash(int key){
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
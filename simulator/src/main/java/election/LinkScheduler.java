@@ -0,0 +1,149 @@
+package election;
+
+/*
+Decides which queued messages a node sends in a round, the same way for both engines: up to capacity messages per
+link, in queue order. Heartbeats go first, then the ring queues, then the messages for individual neighbours, which
+share the links with them. Every election message taken is reported to the node as sent, then handed to the sink with
+its receiver.
+
+Not thread-safe: every thread that collects messages needs its own scheduler.
+*/
+public class LinkScheduler {
+
+    public interface Sink {
+
+        // queueDepth is the size of the queue the message was taken from, before it was taken
+        void add(Node sender, long message, Node receiver, int queueDepth);
+    }
+
+    private final Topology topology;
+
+    private final int capacity;
+
+    // Per node index, the stamp of the last sender that used its link to that node, and how many messages went over it.
+    // Only needed by graph algorithms.
+    private long[] linkStamps;
+    private int[] linkUses;
+    private long linkStamp;
+
+    public LinkScheduler(Topology topology, int capacity){
+
+        if (capacity < 1){
+            throw new IllegalArgumentException("The link capacity must be at least 1");
+        }
+
+        this.topology = topology;
+        this.capacity = capacity;
+    }
+
+    public void collect(Node node, Sink sink){
+
+        // A node sends at most one heartbeat per link and round, so they always fit, and the rest shares what is left
+        int heartbeatsToNext = 0;
+        int heartbeatsToPrevious = 0;
+        long stamp = 0;
+
+        if (!node.heartbeatMessages.isEmpty()){
+
+            int next = this.topology.getNext(node.getIndex());
+            int previous = this.topology.getPrevious(node.getIndex());
+            stamp = this.nextStamp();
+
+            while (!node.heartbeatMessages.isEmpty()){
+
+                int depth = node.heartbeatMessages.size() / 2;
+                long message = node.heartbeatMessages.poll();
+                int target = (int) node.heartbeatMessages.poll();
+
+                if (target == next){
+                    heartbeatsToNext++;
+                }else if (target == previous){
+                    heartbeatsToPrevious++;
+                }
+
+                this.use(target, stamp, 1);
+                sink.add(node, message, this.topology.getNode(target), depth);
+            }
+        }
+
+        int toNext = Math.min(this.capacity - heartbeatsToNext, node.outgoingMessages.size());
+        int toPrevious = Math.min(this.capacity - heartbeatsToPrevious, node.outgoingToPrevious.size());
+
+        if (toNext > 0){
+            Node next = node.getNextNode();
+            for (int k=0; k<toNext; k++){
+                int depth = node.outgoingMessages.size();
+                long message = node.outgoingMessages.peek();
+
+                node.sendMessage(message);
+                sink.add(node, message, next, depth);
+            }
+        }
+
+        if (toPrevious > 0){
+            Node previous = node.getPreviousNode();
+            for (int k=0; k<toPrevious; k++){
+                int depth = node.outgoingToPrevious.size();
+                long message = MessageCreator.backward(node.outgoingToPrevious.peek());
+
+                node.sendMessage(message);
+                sink.add(node, message, previous, depth);
+            }
+        }
+
+        if (!node.neighbourMessages.isEmpty()){
+            this.collectNeighbourMessages(node, toNext, toPrevious, stamp == 0 ? this.nextStamp() : stamp, sink);
+        }
+    }
+
+    // Takes the first messages for each neighbour whose link still has room in this round, including the ring links
+    // and heartbeats used above. The other messages go back to the queue, in order.
+    private void collectNeighbourMessages(Node node, int toNext, int toPrevious, long stamp, Sink sink){
+
+        if (toNext > 0){
+            this.use(this.topology.getNext(node.getIndex()), stamp, toNext);
+        }
+
+        if (toPrevious > 0){
+            this.use(this.topology.getPrevious(node.getIndex()), stamp, toPrevious);
+        }
+
+        int depth = node.neighbourMessages.size() / 2;
+        for (int k=0; k<depth; k++){
+
+            long message = node.neighbourMessages.poll();
+            int target = (int) node.neighbourMessages.poll();
+
+            if (this.linkStamps[target] == stamp && this.linkUses[target] >= this.capacity){
+                node.neighbourMessages.add(message);
+                node.neighbourMessages.add(target);
+                continue;
+            }
+
+            this.use(target, stamp, 1);
+            node.neighbourMessageSent(message);
+            sink.add(node, message, this.topology.getNode(target), depth);
+        }
+    }
+
+    // Stamps the links of one sender in one round, so that their uses do not have to be reset
+    private long nextStamp(){
+
+        if (this.linkStamps == null){
+            this.linkStamps = new long[this.topology.size()];
+            this.linkUses = new int[this.topology.size()];
+        }
+
+        return ++this.linkStamp;
+    }
+
+    private void use(int target, long stamp, int messages){
+
+        if (this.linkStamps[target] != stamp){
+            this.linkStamps[target] = stamp;
+            this.linkUses[target] = 0;
+        }
+
+        this.linkUses[target] += messages;
+    }
+}
@@ -0,0 +1,26 @@
+package election;
+
+// Delivers into the mailboxes of nodes that run in this JVM, which is all of them
+public class LocalTransport implements Transport {
+
+    private final int nodes;
+
+    public LocalTransport(int nodes){
+        this.nodes = nodes;
+    }
+
+    @Override
+    public int getFrom(){
+        return 0;
+    }
+
+    @Override
+    public int getTo(){
+        return this.nodes;
+    }
+
+    @Override
+    public boolean deliver(Node receiver, LongQueue messages, int from, int count, Mailboxes mailboxes){
+        return mailboxes.put(receiver, messages, from, count);
+    }
+}
@@ -0,0 +1,250 @@
+package election;
+
+import java.io.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+Writes the results of a run (e.g. LEADER lines) to log.txt, and echoes them to the console together with the more
+detailed DEBUG (rounds, failures) and TRACE (every received message) lines, depending on the level. getInstance gives
+the shared logger of log.txt; a simulation that must not share it gets a logger of its own, over any writers.
+
+In asynchronous mode the callers only claim a preallocated event in a bounded ring buffer and fill it in. A background
+thread formats the events and writes them in batches. Callers block only when the buffer is full.
+*/
+public class Logger {
+
+    public enum Level {
+
+        // Results of the run, the only lines written to log.txt
+        INFO,
+
+        // Rounds and failures
+        DEBUG,
+
+        // Every message received by a node
+        TRACE
+    }
+
+    private static final int BUFFER_SIZE = 1 << 14;
+
+    private static Logger instance = null;
+
+    private Writer writer;
+
+    private Writer console;
+
+    private Level level = Level.TRACE;
+
+    private boolean echo = true;
+
+    // Everything below is only used in asynchronous mode
+    private LogEvent[] events;
+
+    // Next sequence number to hand out to a producer
+    private AtomicLong claimed;
+
+    // Sequence number last written into each slot, so that the writer knows when an event is complete
+    private AtomicLongArray published;
+
+    // Next sequence number the writer thread will read
+    private volatile long consumed;
+
+    private volatile boolean closing;
+
+    private Thread writerThread;
+
+    private Logger(){
+        try {
+            this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream("log.txt"), "utf-8"));
+            this.console = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+        } catch (IOException ex) {
+            System.out.println("Unable to open file writer: " + ex.toString());
+        }
+    }
+
+    // A logger of its own, e.g. for one of several simulations running in the same JVM. The results go to writer,
+    // the echoed lines to console.
+    public Logger(Writer writer, Writer console){
+        this.writer = writer;
+        this.console = console;
+    }
+
+    // Chooses the mode and what is shown on the console. Must be called before anything is logged.
+    public void configure(boolean async, Level level, boolean echo){
+
+        this.level = level;
+        this.echo = echo;
+
+        if (async && this.writerThread == null){
+
+            this.events = new LogEvent[BUFFER_SIZE];
+            this.published = new AtomicLongArray(BUFFER_SIZE);
+            for (int i=0; i<BUFFER_SIZE; i++){
+                this.events[i] = new LogEvent();
+                this.published.set(i, -1);
+            }
+            this.claimed = new AtomicLong();
+
+            this.writerThread = new Thread(this::drain, "Logger");
+            this.writerThread.setDaemon(true);
+            this.writerThread.start();
+        }
+    }
+
+    public boolean isEnabled(Level level){
+        return level == Level.INFO || (this.echo && level.compareTo(this.level) <= 0);
+    }
+
+    // Stops the writer thread once everything queued so far has been written, then flushes and closes the files
+    public void closeWriter(){
+
+        if (this.writerThread != null){
+            this.closing = true;
+            LockSupport.unpark(this.writerThread);
+            try {
+                this.writerThread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        try {
+            writer.close();
+            console.flush();
+        } catch (Exception ex) {
+            System.out.println("Unable to close file writer: " + ex.toString());
+        }
+
+        if (instance == this){
+            instance = null;
+        }
+    }
+
+    public void log(String line){
+        this.log(Level.INFO, line, null, 0, 0, 0);
+    }
+
+    public void log(String format, int value){
+        this.log(Level.INFO, null, format, 1, value, 0);
+    }
+
+    public void debug(String format, int value){
+        this.log(Level.DEBUG, null, format, 1, value, 0);
+    }
+
+    public void trace(String format, int first, int second){
+        this.log(Level.TRACE, null, format, 2, first, second);
+    }
+
+    // Either the line, or a format with up to two int arguments
+    private void log(Level level, String line, String format, int arguments, int first, int second){
+
+        if (!this.isEnabled(level)){
+            return;
+        }
+
+        if (this.writerThread == null){
+            synchronized (this){
+                this.write(level, line != null ? line : format(format, arguments, first, second));
+                this.flushConsole();
+            }
+            return;
+        }
+
+        long sequence = this.claimed.getAndIncrement();
+
+        // Wait for the writer if the buffer is full
+        while (sequence - this.consumed >= BUFFER_SIZE){
+            LockSupport.unpark(this.writerThread);
+            Thread.yield();
+        }
+
+        int slot = (int) (sequence & (BUFFER_SIZE - 1));
+        LogEvent event = this.events[slot];
+        event.level = level;
+        event.line = line;
+        event.format = format;
+        event.arguments = arguments;
+        event.first = first;
+        event.second = second;
+
+        this.published.set(slot, sequence);
+    }
+
+    // Body of the writer thread: writes events in order, and flushes whenever it catches up with the producers
+    private void drain(){
+
+        long sequence = 0;
+
+        while (true){
+
+            int slot = (int) (sequence & (BUFFER_SIZE - 1));
+
+            if (this.published.get(slot) == sequence){
+
+                LogEvent event = this.events[slot];
+                this.write(event.level, event.line != null ? event.line
+                        : format(event.format, event.arguments, event.first, event.second));
+                event.line = null;
+
+                sequence++;
+                this.consumed = sequence;
+                continue;
+            }
+
+            this.flushConsole();
+
+            if (this.closing && this.claimed.get() == sequence){
+                return;
+            }
+
+            LockSupport.parkNanos(this, 100000);
+        }
+    }
+
+    private void write(Level level, String line){
+        try {
+            if (this.echo){
+                this.console.write(line);
+                this.console.write('\n');
+            }
+            if (level == Level.INFO){
+                this.writer.write(line + "\n");
+            }
+        } catch (IOException e) {
+            System.out.println("Unable to write to file: " + e.toString());
+        }
+    }
+
+    private void flushConsole(){
+        try {
+            this.console.flush();
+        } catch (IOException e) {
+            System.out.println("Unable to write to console: " + e.toString());
+        }
+    }
+
+    private static String format(String format, int arguments, int first, int second){
+        return arguments == 1 ? String.format(format, first) : String.format(format, first, second);
+    }
+
+    public static Logger getInstance(){
+        if (instance == null){
+            instance = new Logger();
+        }
+
+        return instance;
+    }
+
+    // Preallocated slot of the ring buffer
+    private static class LogEvent {
+        private Level level;
+        private String line;
+        private String format;
+        private int arguments;
+        private int first;
+        private int second;
+    }
+}
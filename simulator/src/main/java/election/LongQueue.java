@@ -0,0 +1,91 @@
+package election;
+
+import java.util.NoSuchElementException;
+
+// Growable FIFO queue of primitive longs, used for packed messages so that queueing them does not box anything
+public class LongQueue {
+
+    private long[] elements;
+
+    private int head;
+
+    private int size;
+
+    public LongQueue(){
+        this(2);
+    }
+
+    public LongQueue(int capacity){
+        this.elements = new long[Math.max(capacity, 1)];
+    }
+
+    public void add(long element){
+
+        if (this.size == this.elements.length){
+            this.grow();
+        }
+
+        this.elements[(this.head + this.size) % this.elements.length] = element;
+        this.size++;
+    }
+
+    public long peek(){
+
+        if (this.size == 0){
+            throw new NoSuchElementException();
+        }
+
+        return this.elements[this.head];
+    }
+
+    public long poll(){
+
+        long element = this.peek();
+        this.head = (this.head + 1) % this.elements.length;
+        this.size--;
+
+        return element;
+    }
+
+    // Returns the i-th element from the head, without removing it
+    public long get(int i){
+
+        if (i < 0 || i >= this.size){
+            throw new IndexOutOfBoundsException("Index " + i + ", size " + this.size);
+        }
+
+        return this.elements[(this.head + i) % this.elements.length];
+    }
+
+    // Appends all elements of the other queue to this one
+    public void addAll(LongQueue other){
+
+        for (int i=0; i<other.size; i++){
+            this.add(other.get(i));
+        }
+    }
+
+    public void clear(){
+        this.head = 0;
+        this.size = 0;
+    }
+
+    public int size(){
+        return this.size;
+    }
+
+    public boolean isEmpty(){
+        return this.size == 0;
+    }
+
+    private void grow(){
+
+        long[] grown = new long[this.elements.length * 2];
+        for (int i=0; i<this.size; i++){
+            grown[i] = this.elements[(this.head + i) % this.elements.length];
+        }
+
+        this.elements = grown;
+        this.head = 0;
+    }
+}
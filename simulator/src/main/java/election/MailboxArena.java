@@ -0,0 +1,229 @@
+package election;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+Incoming messages of all the nodes of a topology, kept in preallocated long[] pages instead of one queue and lock per
+node. A page holds the mailboxes of PAGE_NODES consecutive node indexes:
+
+    slots      SLOTS messages per node, used as a ring
+    cursors    per node, the number of messages taken (head, at 2i) and put (tail, at 2i+1) so far
+    states     per node, RUNNING, PARKED (its thread waits for a message) or CLOSED
+    consumers  per node, the thread that takes its messages
+
+Every mailbox has a single producer and a single consumer at a time: the network delivers the messages of one
+receiver from one thread per round, and the node's own thread takes them. The producer publishes the tail and the
+consumer the head, so putting and taking a message neither locks nor allocates. A producer that finds the ring full
+waits for the node to take what is there, which it always does since handling a message never waits for the network.
+A mailbox is only closed while nothing is delivered to it.
+*/
+public class MailboxArena {
+
+    // Messages a mailbox holds before its producer has to wait
+    public static final int SLOTS = 8;
+
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private static final int PAGE_BITS = 12;
+
+    private static final int PAGE_NODES = 1 << PAGE_BITS;
+
+    private static final int PAGE_MASK = PAGE_NODES - 1;
+
+    private static final int RUNNING = 0;
+
+    private static final int PARKED = 1;
+
+    private static final int CLOSED = 2;
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private Page[] pages = new Page[0];
+
+    // Makes room for the mailbox of a node. Called while the topology is built, before any node runs.
+    public void ensure(int index){
+
+        int page = index >>> PAGE_BITS;
+        if (page >= this.pages.length){
+            int count = this.pages.length;
+            this.pages = Arrays.copyOf(this.pages, page + 1);
+            for (int i=count; i<this.pages.length; i++){
+                this.pages[i] = new Page();
+            }
+        }
+    }
+
+    // Returns the number of messages waiting in the mailbox, including this one, or 0 if it is closed
+    public int put(int index, long message){
+
+        Page page = this.pages[index >>> PAGE_BITS];
+        int node = index & PAGE_MASK;
+
+        long tail = page.cursors[2 * node + 1];
+        if (!this.awaitRoom(page, node, tail)){
+            return 0;
+        }
+
+        page.slots[node * SLOTS + (int) (tail & SLOT_MASK)] = message;
+
+        return this.publish(page, node, tail + 1);
+    }
+
+    // Puts count messages, starting at position from, with a single wake-up unless the frame does not fit.
+    // Returns the number of messages waiting in the mailbox, including these ones, or 0 if it is closed.
+    public int putAll(int index, LongQueue frame, int from, int count){
+
+        Page page = this.pages[index >>> PAGE_BITS];
+        int node = index & PAGE_MASK;
+
+        long tail = page.cursors[2 * node + 1];
+        long published = tail;
+
+        for (int i=from; i<from + count; i++){
+
+            // Let the node take what is already there before waiting for it
+            if (tail - (long) LONGS.getAcquire(page.cursors, 2 * node) == SLOTS && tail != published){
+                this.publish(page, node, tail);
+                published = tail;
+            }
+
+            if (!this.awaitRoom(page, node, tail)){
+                return 0;
+            }
+
+            page.slots[node * SLOTS + (int) (tail & SLOT_MASK)] = frame.get(i);
+            tail++;
+        }
+
+        return this.publish(page, node, tail);
+    }
+
+    // Blocks until there is at least one message, then moves all of them into the batch.
+    // Returns false once the mailbox has been closed.
+    public boolean takeAll(int index, LongQueue batch){
+
+        Page page = this.pages[index >>> PAGE_BITS];
+        int node = index & PAGE_MASK;
+
+        while (!this.poll(index, batch)){
+
+            if ((int) INTS.getVolatile(page.states, node) == CLOSED){
+                return false;
+            }
+
+            // Park, unless a message arrived or the mailbox was closed after the poll
+            page.consumers[node] = Thread.currentThread();
+            if (INTS.compareAndSet(page.states, node, RUNNING, PARKED)){
+
+                if (this.isEmpty(index)){
+                    LockSupport.park(this);
+                }
+
+                INTS.compareAndSet(page.states, node, PARKED, RUNNING);
+            }
+        }
+
+        return true;
+    }
+
+    // Moves all waiting messages into the batch without blocking.
+    // Returns false if there were none, or the mailbox has been closed.
+    public boolean poll(int index, LongQueue batch){
+
+        Page page = this.pages[index >>> PAGE_BITS];
+        int node = index & PAGE_MASK;
+
+        while ((int) INTS.getVolatile(page.states, node) != CLOSED){
+
+            long head = (long) LONGS.getVolatile(page.cursors, 2 * node);
+            long tail = (long) LONGS.getVolatile(page.cursors, 2 * node + 1);
+
+            if (tail == head){
+                return false;
+            }
+
+            for (long m=head; m<tail; m++){
+                batch.add(page.slots[node * SLOTS + (int) (m & SLOT_MASK)]);
+            }
+
+            // Fails only if the mailbox was closed in the meantime, and its messages dropped
+            if (LONGS.compareAndSet(page.cursors, 2 * node, head, tail)){
+                return true;
+            }
+
+            batch.clear();
+        }
+
+        return false;
+    }
+
+    public boolean isEmpty(int index){
+
+        Page page = this.pages[index >>> PAGE_BITS];
+        int node = index & PAGE_MASK;
+
+        return (long) LONGS.getVolatile(page.cursors, 2 * node + 1) == (long) LONGS.getVolatile(page.cursors, 2 * node);
+    }
+
+    // Returns the number of messages that were still waiting, which are dropped
+    public int close(int index){
+
+        Page page = this.pages[index >>> PAGE_BITS];
+        int node = index & PAGE_MASK;
+
+        int state = (int) INTS.getAndSet(page.states, node, CLOSED);
+
+        long tail = (long) LONGS.getVolatile(page.cursors, 2 * node + 1);
+        long head = (long) LONGS.getAndSet(page.cursors, 2 * node, tail);
+
+        if (state == PARKED){
+            LockSupport.unpark(page.consumers[node]);
+        }
+
+        return (int) (tail - head);
+    }
+
+    // Waits until the slot at tail is free. Returns false if the mailbox is closed.
+    private boolean awaitRoom(Page page, int node, long tail){
+
+        while (tail - (long) LONGS.getAcquire(page.cursors, 2 * node) >= SLOTS){
+
+            if ((int) INTS.getVolatile(page.states, node) == CLOSED){
+                return false;
+            }
+
+            Thread.yield();
+        }
+
+        return (int) INTS.getVolatile(page.states, node) != CLOSED;
+    }
+
+    // Makes the messages up to tail visible to the node and wakes it up if it is parked.
+    // Returns the number of messages waiting, at least one since the node cannot have taken more than that.
+    private int publish(Page page, int node, long tail){
+
+        LONGS.setVolatile(page.cursors, 2 * node + 1, tail);
+
+        if ((int) INTS.getVolatile(page.states, node) == PARKED){
+            LockSupport.unpark(page.consumers[node]);
+        }
+
+        return (int) Math.max(1, tail - (long) LONGS.getAcquire(page.cursors, 2 * node));
+    }
+
+    private static class Page {
+
+        private final long[] slots = new long[PAGE_NODES * SLOTS];
+
+        private final long[] cursors = new long[PAGE_NODES * 2];
+
+        private final int[] states = new int[PAGE_NODES];
+
+        private final Thread[] consumers = new Thread[PAGE_NODES];
+    }
+}
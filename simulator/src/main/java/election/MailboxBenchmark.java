@@ -0,0 +1,82 @@
+package election;
+
+import java.lang.management.*;
+
+/*
+Heap and garbage collection cost of the message path of the threaded network. Builds a shuffled ring where a few
+nodes start elections, reports the heap the topology and its mailboxes take, then runs the election and reports the
+collections that happened during the run and how long they took.
+
+Usage: java MailboxBenchmark [size] [initiators]   (default: 5000 nodes, 50 initiators)
+Run with -Xlog:gc to see every pause.
+*/
+public class MailboxBenchmark {
+
+    public static void main(String args[]) {
+
+        int size = args.length > 0 ? Integer.valueOf(args[0]) : 5000;
+        int initiators = args.length > 1 ? Integer.valueOf(args[1]) : 50;
+
+        NetworkSettings settings = new NetworkSettings();
+        settings.setLogLevel(Logger.Level.INFO);
+        settings.setConsoleEcho(false);
+
+        WorkloadGenerator generator = new WorkloadGenerator();
+        generator.setNodes(size);
+        generator.setInitiators(initiators);
+
+        long before = usedHeap();
+        Topology topology = generator.build();
+        Network network = new Network(topology, settings);
+        long heap = usedHeap() - before;
+
+        long collections = collections();
+        long collectionMillis = collectionMillis();
+        long startTime = System.nanoTime();
+
+        network.run();
+
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        collections = collections() - collections;
+        collectionMillis = collectionMillis() - collectionMillis;
+
+        System.out.println(String.format("%d nodes: %,d bytes of heap before the run (%.1f per node)", size, heap, heap / (double) size));
+        System.out.println(String.format("%d rounds, %d messages in %.3f s: %d collections, %d ms in total (%.2f ms per collection)",
+                network.getRound(), network.getMessagesDelivered(), seconds, collections, collectionMillis,
+                collections == 0 ? 0.0 : collectionMillis / (double) collections));
+
+        if (network.getLeader() == null || network.getLeader().getNodeId() != size){
+            throw new IllegalStateException("Expected node " + size + " to be elected");
+        }
+    }
+
+    private static long usedHeap(){
+
+        Runtime runtime = Runtime.getRuntime();
+        for (int i=0; i<3; i++){
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long collections(){
+
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()){
+            count += collector.getCollectionCount();
+        }
+
+        return count;
+    }
+
+    private static long collectionMillis(){
+
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()){
+            millis += collector.getCollectionTime();
+        }
+
+        return millis;
+    }
+}
@@ -0,0 +1,242 @@
+package election;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/*
+Reads the same format as TopologyParser, but memory-maps the file and scans the digits in place, so that no line
+or token strings are built. Adjacency, ELECT, FAIL and CRASH records go straight into the topology and the action schedule.
+
+Large files are mapped in windows that end on a line boundary, so a single line must fit in one window.
+*/
+public class MappedTopologyParser {
+
+    private static final long WINDOW = 1L << 30;
+
+    private static final byte[] HEADER = "Node_id".getBytes();
+
+    private static final byte[] ELECT = MessageCreator.ELECTION_TAG.getBytes();
+
+    private static final byte[] FAIL = MessageCreator.FAIL_TAG.getBytes();
+
+    private static final byte[] CRASH = MessageCreator.CRASH_TAG.getBytes();
+
+    private final Topology topology;
+
+    private MappedByteBuffer buffer;
+
+    private int position;
+
+    private int limit;
+
+    private Node firstNode;
+
+    private Node lastNode;
+
+    private MappedTopologyParser(){
+        this.topology = new Topology();
+    }
+
+    public static Topology parse(String fileName) throws IOException {
+
+        MappedTopologyParser parser = new MappedTopologyParser();
+
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+
+            long size = channel.size();
+            long offset = 0;
+
+            while (offset < size){
+
+                long length = Math.min(WINDOW, size - offset);
+                parser.buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                parser.limit = (int) length;
+
+                // Stop the window after its last complete line, unless this is the end of the file
+                if (offset + length < size){
+                    while (parser.limit > 0 && parser.buffer.get(parser.limit - 1) != '\n'){
+                        parser.limit--;
+                    }
+                    if (parser.limit == 0){
+                        throw new IOException("Line longer than " + WINDOW + " bytes at offset " + offset);
+                    }
+                }
+
+                parser.position = 0;
+                while (parser.position < parser.limit){
+                    parser.parseLine();
+                }
+
+                offset += parser.limit;
+            }
+        }
+
+        parser.closeRing();
+        parser.topology.compact();
+
+        return parser.topology;
+    }
+
+    private void parseLine() throws IOException {
+
+        this.skipSpaces();
+        if (this.atEndOfLine()){
+            this.skipLineBreak();
+            return;
+        }
+
+        byte first = this.buffer.get(this.position);
+
+        if (isDigit(first)){
+            this.parseAdjacency();
+        }else if (this.matchWord(ELECT)){
+            this.parseAction(MessageCreator.ELECTION_TAG);
+        }else if (this.matchWord(CRASH)){
+            this.parseAction(MessageCreator.FAIL_TAG);
+        }else if (this.matchWord(FAIL)){
+            this.topology.addFailure(this.topology.addOrGetNodeWithId(this.nextId()));
+        }else if (this.matchWord(HEADER)){
+            while (!this.atEndOfLine()){
+                this.position++;
+            }
+        }else{
+            throw new IOException("Unexpected record at byte " + this.position);
+        }
+
+        this.skipSpaces();
+        if (!this.atEndOfLine()){
+            throw new IOException("Unexpected characters at byte " + this.position);
+        }
+
+        this.skipLineBreak();
+    }
+
+    // "<id> <neighbour>...": the nodes form the ring in the order of these lines
+    private void parseAdjacency() throws IOException {
+
+        Node mainNode = this.topology.addOrGetNodeWithId(this.nextId());
+
+        while (this.hasNextInt()){
+            this.topology.addNeighbour(mainNode, this.topology.addOrGetNodeWithId(this.nextId()));
+        }
+
+        if (this.firstNode == null){
+            this.firstNode = mainNode;
+        }
+
+        if (this.lastNode != null){
+            this.lastNode.setNextNode(mainNode);
+            mainNode.setPreviousNode(this.lastNode);
+        }
+
+        this.lastNode = mainNode;
+    }
+
+    // "ELECT <round> <id>..." or "CRASH <round> <id>..."
+    private void parseAction(String type) throws IOException {
+
+        int round = this.nextInt();
+        Action action = new Action(type);
+
+        while (this.hasNextInt()){
+            action.addNode(this.topology.addOrGetNodeWithId(this.nextId()));
+        }
+
+        this.topology.addAction(round, action);
+    }
+
+    private void closeRing(){
+
+        if (this.lastNode != null){
+            this.lastNode.setNextNode(this.firstNode);
+            this.firstNode.setPreviousNode(this.lastNode);
+        }
+    }
+
+    private boolean hasNextInt(){
+
+        this.skipSpaces();
+        return this.position < this.limit && isDigit(this.buffer.get(this.position));
+    }
+
+    // A node id, which has to fit in a packed message
+    private int nextId() throws IOException {
+
+        int start = this.position;
+        int id = this.nextInt();
+        if (id > MessageCreator.MAX_ID){
+            throw new IOException(String.format("Node id %d at byte %d is too large: ids must be between 0 and %d", id, start, MessageCreator.MAX_ID));
+        }
+
+        return id;
+    }
+
+    private int nextInt() throws IOException {
+
+        if (!this.hasNextInt()){
+            throw new IOException("Expected a number at byte " + this.position);
+        }
+
+        long value = 0;
+        while (this.position < this.limit && isDigit(this.buffer.get(this.position))){
+            value = value * 10 + (this.buffer.get(this.position++) - '0');
+            if (value > Integer.MAX_VALUE){
+                throw new IOException("Number too large at byte " + this.position);
+            }
+        }
+
+        return (int) value;
+    }
+
+    // Consumes the word if it is next and is followed by a space or the end of the line
+    private boolean matchWord(byte[] word){
+
+        if (this.position + word.length > this.limit){
+            return false;
+        }
+
+        for (int i=0; i<word.length; i++){
+            if (this.buffer.get(this.position + i) != word[i]){
+                return false;
+            }
+        }
+
+        int end = this.position + word.length;
+        if (end < this.limit && !isSpace(this.buffer.get(end)) && !isLineBreak(this.buffer.get(end))){
+            return false;
+        }
+
+        this.position = end;
+        return true;
+    }
+
+    private void skipSpaces(){
+        while (this.position < this.limit && isSpace(this.buffer.get(this.position))){
+            this.position++;
+        }
+    }
+
+    private boolean atEndOfLine(){
+        return this.position >= this.limit || isLineBreak(this.buffer.get(this.position));
+    }
+
+    private void skipLineBreak(){
+        while (this.position < this.limit && isLineBreak(this.buffer.get(this.position))){
+            this.position++;
+        }
+    }
+
+    private static boolean isDigit(byte b){
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isSpace(byte b){
+        return b == ' ' || b == '\t';
+    }
+
+    private static boolean isLineBreak(byte b){
+        return b == '\n' || b == '\r';
+    }
+}
@@ -0,0 +1,264 @@
+package election;
+
+/*
+Messages are packed into a single long, so that sending, delivering and handling them needs no string formatting,
+parsing or allocation:
+
+    bits 60-63  type (ELECTION, LEADER, FAIL, PROBE, REPLY, CANDIDATE, WAVE, LOCAL_LEADER, OVERLAY, WAKE, ANNOUNCE,
+                HEARTBEAT)
+    bits 57-59  election epoch, used by the bidirectional algorithms to drop messages of an election that is over
+    bit  56     set while the message travels backwards, from a node to its previous node
+    bits 28-55  initializer id (or the failed node's id for FAIL messages, the sender's id for HEARTBEAT messages, the
+                candidate's id for the other types)
+    bits  0-27  maximum id (ELECT), leader id (LEADER, ANNOUNCE), phase and hop count (PROBE, REPLY, CANDIDATE) or
+                sender id (WAVE), unused otherwise
+
+Node ids must therefore be between 0 and MAX_ID. The text form is only used for logging.
+*/
+public class MessageCreator {
+
+    public static final String ELECTION_TAG = "ELECT";
+
+    public static final String LEADER_TAG = "LEADER";
+
+    public static final String FAIL_TAG = "FAIL";
+
+    // Input record for failures scheduled for a given round. The actions it creates have the FAIL_TAG type.
+    public static final String CRASH_TAG = "CRASH";
+
+    public static final int ELECTION = 1;
+
+    public static final int LEADER = 2;
+
+    public static final int FAIL = 3;
+
+    // Hirschberg-Sinclair
+    public static final int PROBE = 4;
+
+    public static final int REPLY = 5;
+
+    // Franklin
+    public static final int CANDIDATE = 6;
+
+    // Echo with extinction
+    public static final int WAVE = 7;
+
+    // Hierarchical: a segment's leader on its way to the segment head, a candidate between heads, the wake-up of the
+    // heads and the global leader on its way around the heads
+    public static final int LOCAL_LEADER = 8;
+
+    public static final int OVERLAY = 9;
+
+    public static final int WAKE = 10;
+
+    public static final int ANNOUNCE = 11;
+
+    // Failure detector, see HeartbeatDetector
+    public static final int HEARTBEAT = 12;
+
+    public static final int MAX_ID = (1 << 28) - 1;
+
+    private static final int TYPE_SHIFT = 60;
+
+    private static final int FIRST_ID_SHIFT = 28;
+
+    private static final long BACKWARD = 1L << 56;
+
+    private static final int EPOCH_SHIFT = 57;
+
+    private static final long EPOCH_MASK = 7L << EPOCH_SHIFT;
+
+    // The phase takes the top 6 bits of the second field, the hop count the other 22
+    private static final int PHASE_SHIFT = 22;
+
+    public static final int MAX_HOPS = (1 << PHASE_SHIFT) - 1;
+
+    public static long createElectMessage(int initializerId, int maximumId){
+        return pack(ELECTION, initializerId, maximumId);
+    }
+
+    public static long createLeaderMessage(int initializerId, int leaderId){
+        return pack(LEADER, initializerId, leaderId);
+    }
+
+    public static long createFailMessage(int nodeId){
+        return pack(FAIL, nodeId, 0);
+    }
+
+    public static long createProbeMessage(int candidateId, int phase, int hops){
+        return pack(PROBE, candidateId, (phase << PHASE_SHIFT) | hops);
+    }
+
+    public static long createReplyMessage(int candidateId, int phase){
+        return pack(REPLY, candidateId, phase << PHASE_SHIFT);
+    }
+
+    public static long createCandidateMessage(int candidateId, int phase){
+        return pack(CANDIDATE, candidateId, phase << PHASE_SHIFT);
+    }
+
+    public static long createWaveMessage(int candidateId, int senderId){
+        return pack(WAVE, candidateId, senderId);
+    }
+
+    public static long createLocalLeaderMessage(int leaderId){
+        return pack(LOCAL_LEADER, leaderId, 0);
+    }
+
+    public static long createOverlayMessage(int candidateId){
+        return pack(OVERLAY, candidateId, 0);
+    }
+
+    public static long createWakeMessage(int headId){
+        return pack(WAKE, headId, 0);
+    }
+
+    // Sent by the head of the winner's segment, which is where the announcement stops
+    public static long createAnnounceMessage(int headId, int leaderId){
+        return pack(ANNOUNCE, headId, leaderId);
+    }
+
+    public static long createHeartbeatMessage(int senderId){
+        return pack(HEARTBEAT, senderId, 0);
+    }
+
+    // Marks a message that the network delivers to the sender's previous node instead of its next one
+    public static long backward(long message){
+        return message | BACKWARD;
+    }
+
+    public static boolean isBackward(long message){
+        return (message & BACKWARD) != 0;
+    }
+
+    // The message without its direction, as a node forwards or stores it
+    public static long withoutDirection(long message){
+        return message & ~BACKWARD;
+    }
+
+    public static long withEpoch(long message, int epoch){
+        return (message & ~EPOCH_MASK) | ((long) (epoch & 7) << EPOCH_SHIFT);
+    }
+
+    public static int getEpoch(long message){
+        return (int) ((message & EPOCH_MASK) >>> EPOCH_SHIFT);
+    }
+
+    public static int getMessageType(long message){
+
+        return (int) (message >>> TYPE_SHIFT);
+    }
+
+    public static int getCandidateId(long message){
+
+        return getFirstId(message);
+    }
+
+    public static int getSenderId(long message){
+
+        return getSecondId(message);
+    }
+
+    public static int getPhase(long message){
+
+        return getSecondId(message) >>> PHASE_SHIFT;
+    }
+
+    public static int getHops(long message){
+
+        return getSecondId(message) & MAX_HOPS;
+    }
+
+    public static int getInitializerIdFromElectMessage(long message){
+
+        return getFirstId(message);
+    }
+
+    public static int getMaximumIdFromElectMessage(long message){
+
+        return getSecondId(message);
+    }
+
+    public static int getLeaderIdFromLeaderMessage(long message){
+
+        return getSecondId(message);
+    }
+
+    public static int getInitializerIdFromLeaderMessage(long message){
+
+        return getFirstId(message);
+    }
+
+    public static int getFailedNodeIdFromFailMessage(long message){
+
+        return getFirstId(message);
+    }
+
+    public static int getSenderIdFromHeartbeatMessage(long message){
+
+        return getFirstId(message);
+    }
+
+    // Text form of a message, e.g. "ELECT 3 20", as it used to be sent before messages were packed
+    public static String toString(long message){
+
+        switch (getMessageType(message)){
+
+            case ELECTION:
+                return String.format("%s %d %d", ELECTION_TAG, getFirstId(message), getSecondId(message));
+
+            case LEADER:
+                return String.format("%s %d %d", LEADER_TAG, getFirstId(message), getSecondId(message));
+
+            case FAIL:
+                return String.format("%s %d", FAIL_TAG, getFirstId(message));
+
+            case PROBE:
+                return String.format("PROBE %d %d %d", getCandidateId(message), getPhase(message), getHops(message));
+
+            case REPLY:
+                return String.format("REPLY %d %d", getCandidateId(message), getPhase(message));
+
+            case CANDIDATE:
+                return String.format("CANDIDATE %d %d", getCandidateId(message), getPhase(message));
+
+            case WAVE:
+                return String.format("WAVE %d %d", getCandidateId(message), getSenderId(message));
+
+            case LOCAL_LEADER:
+                return String.format("LOCAL_LEADER %d", getCandidateId(message));
+
+            case OVERLAY:
+                return String.format("OVERLAY %d", getCandidateId(message));
+
+            case WAKE:
+                return String.format("WAKE %d", getCandidateId(message));
+
+            case ANNOUNCE:
+                return String.format("ANNOUNCE %d %d", getCandidateId(message), getLeaderIdFromLeaderMessage(message));
+
+            case HEARTBEAT:
+                return String.format("HEARTBEAT %d", getFirstId(message));
+
+            default:
+                return String.format("UNKNOWN %016x", message);
+        }
+    }
+
+    private static long pack(int type, int firstId, int secondId){
+
+        if (firstId < 0 || firstId > MAX_ID || secondId < 0 || secondId > MAX_ID){
+            throw new IllegalArgumentException(String.format("Node ids must be between 0 and %d", MAX_ID));
+        }
+
+        return ((long) type << TYPE_SHIFT) | ((long) firstId << FIRST_ID_SHIFT) | secondId;
+    }
+
+    private static int getFirstId(long message){
+        return (int) (message >>> FIRST_ID_SHIFT) & MAX_ID;
+    }
+
+    private static int getSecondId(long message){
+        return (int) message & MAX_ID;
+    }
+}
@@ -0,0 +1,206 @@
+package election;
+
+import java.io.*;
+import java.util.*;
+
+/*
+Statistics collected by the network while it runs, enabled with --metrics=<file>. All methods are called from the
+network's thread; when metrics are disabled the network does not create this object at all.
+
+Per round: messages collected from the nodes, messages delivered (including FAIL notifications), the deepest incoming
+and outgoing queue seen, and the wall time of the round.
+Per election: the round it started, the round its LEADER message came back to the leader, and the number of hops
+its ELECT and LEADER messages made. Every ELECT action, and every ELECT a node sends with its own id, starts a new
+election and closes the one its initiator had open; an election's ELECT messages must also carry the epoch it started
+in, so those of an earlier election of the same initiator that are still on their way are not counted against it.
+
+A file name ending in .json gives one JSON document. Anything else gives two CSV files, <name>-rounds.csv and
+<name>-elections.csv.
+*/
+public class Metrics {
+
+    // Per round, at index round - 1
+    private int[] collected;
+    private int[] delivered;
+    private int[] maxIncoming;
+    private int[] maxOutgoing;
+    private long[] nanos;
+
+    private int round;
+
+    private long roundStart;
+
+    private ArrayList<Election> elections;
+
+    // Elections whose LEADER message has not come back yet, by initiator: only the last one of each initiator is open
+    private HashMap<Integer, Election> openElections;
+
+    public Metrics(){
+        this.collected = new int[64];
+        this.delivered = new int[64];
+        this.maxIncoming = new int[64];
+        this.maxOutgoing = new int[64];
+        this.nanos = new long[64];
+        this.elections = new ArrayList<>();
+        this.openElections = new HashMap<>();
+    }
+
+    public void startRound(int round){
+
+        this.round = round;
+        this.roundStart = System.nanoTime();
+
+        if (round > this.collected.length){
+            int capacity = this.collected.length * 2;
+            this.collected = Arrays.copyOf(this.collected, capacity);
+            this.delivered = Arrays.copyOf(this.delivered, capacity);
+            this.maxIncoming = Arrays.copyOf(this.maxIncoming, capacity);
+            this.maxOutgoing = Arrays.copyOf(this.maxOutgoing, capacity);
+            this.nanos = Arrays.copyOf(this.nanos, capacity);
+        }
+    }
+
+    public void endRound(){
+        this.nanos[this.round - 1] = System.nanoTime() - this.roundStart;
+    }
+
+    // A message was taken from a node whose outgoing queue held the given number of messages
+    public void messageCollected(int outgoingDepth){
+
+        this.collected[this.round - 1]++;
+        this.maxOutgoing[this.round - 1] = Math.max(this.maxOutgoing[this.round - 1], outgoingDepth);
+    }
+
+    // Called when an ELECT action makes a node start an election
+    public void electionStarted(int initiatorId){
+
+        Election election = new Election(initiatorId, this.round);
+        election.waitingForFirstSend = true;
+
+        this.elections.add(election);
+        this.openElections.put(initiatorId, election);
+    }
+
+    // Catches elections that nodes start by themselves, e.g. after the leader failed: the initiator sends ELECT with its own id
+    public void messageSent(Node sender, long message){
+
+        if (MessageCreator.getMessageType(message) != MessageCreator.ELECTION
+                || MessageCreator.getInitializerIdFromElectMessage(message) != sender.getNodeId()
+                || MessageCreator.getMaximumIdFromElectMessage(message) != sender.getNodeId()){
+            return;
+        }
+
+        Election election = this.openElections.get(sender.getNodeId());
+        if (election != null && election.waitingForFirstSend){
+            election.waitingForFirstSend = false;
+            election.epoch = MessageCreator.getEpoch(message);
+            return;
+        }
+
+        election = new Election(sender.getNodeId(), this.round);
+        election.epoch = MessageCreator.getEpoch(message);
+        this.elections.add(election);
+        this.openElections.put(sender.getNodeId(), election);
+    }
+
+    public void messageDelivered(Node receiver, long message, int incomingDepth){
+
+        this.delivered[this.round - 1]++;
+        this.maxIncoming[this.round - 1] = Math.max(this.maxIncoming[this.round - 1], incomingDepth);
+
+        int type = MessageCreator.getMessageType(message);
+        if (type != MessageCreator.ELECTION && type != MessageCreator.LEADER){
+            return;
+        }
+
+        Election election = this.openElections.get(MessageCreator.getInitializerIdFromElectMessage(message));
+        if (election == null){
+            return;
+        }
+
+        // An ELECT of an earlier election of the same initiator, started over since
+        if (type == MessageCreator.ELECTION && election.epoch >= 0 && MessageCreator.getEpoch(message) != election.epoch){
+            return;
+        }
+
+        election.hops++;
+
+        // The LEADER message is dropped by the leader once it has been all around the ring
+        if (type == MessageCreator.LEADER && MessageCreator.getLeaderIdFromLeaderMessage(message) == receiver.getNodeId()){
+            election.leaderId = receiver.getNodeId();
+            election.completedRound = this.round;
+            this.openElections.remove(election.initiatorId);
+        }
+    }
+
+    public void write(String fileName) throws IOException {
+
+        if (fileName.endsWith(".json")){
+            this.writeJson(fileName);
+            return;
+        }
+
+        String base = fileName.endsWith(".csv") ? fileName.substring(0, fileName.length() - 4) : fileName;
+
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(base + "-rounds.csv")))) {
+            writer.println("round,collected,delivered,max_incoming,max_outgoing,nanos");
+            for (int r=0; r<this.round; r++){
+                writer.println(String.format("%d,%d,%d,%d,%d,%d",
+                        r + 1, this.collected[r], this.delivered[r], this.maxIncoming[r], this.maxOutgoing[r], this.nanos[r]));
+            }
+        }
+
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(base + "-elections.csv")))) {
+            writer.println("initiator,started_round,completed_round,leader,hops");
+            for (Election election : this.elections){
+                writer.println(String.format("%d,%d,%d,%d,%d", election.initiatorId, election.startedRound,
+                        election.completedRound, election.leaderId, election.hops));
+            }
+        }
+    }
+
+    private void writeJson(String fileName) throws IOException {
+
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(fileName)))) {
+
+            writer.println("{");
+            writer.println("  \"rounds\": [");
+            for (int r=0; r<this.round; r++){
+                writer.print(String.format("    {\"round\": %d, \"collected\": %d, \"delivered\": %d, \"maxIncoming\": %d, \"maxOutgoing\": %d, \"nanos\": %d}",
+                        r + 1, this.collected[r], this.delivered[r], this.maxIncoming[r], this.maxOutgoing[r], this.nanos[r]));
+                writer.println(r + 1 < this.round ? "," : "");
+            }
+            writer.println("  ],");
+
+            writer.println("  \"elections\": [");
+            for (int e=0; e<this.elections.size(); e++){
+                Election election = this.elections.get(e);
+                writer.print(String.format("    {\"initiator\": %d, \"startedRound\": %d, \"completedRound\": %d, \"leader\": %d, \"hops\": %d}",
+                        election.initiatorId, election.startedRound, election.completedRound, election.leaderId, election.hops));
+                writer.println(e + 1 < this.elections.size() ? "," : "");
+            }
+            writer.println("  ]");
+            writer.println("}");
+        }
+    }
+
+    // One election, from its initiator's first ELECT message. completedRound and leaderId stay -1 if its messages were
+    // swallowed by another election, as Chang-Roberts does with the smaller ids.
+    private static class Election {
+
+        private final int initiatorId;
+        private final int startedRound;
+        private int completedRound = -1;
+        private int leaderId = -1;
+        private int hops;
+        private boolean waitingForFirstSend;
+
+        // Of its first ELECT message, -1 until it is sent
+        private int epoch = -1;
+
+        private Election(int initiatorId, int startedRound){
+            this.initiatorId = initiatorId;
+            this.startedRound = startedRound;
+        }
+    }
+}
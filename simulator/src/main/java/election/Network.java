@@ -0,0 +1,988 @@
+package election;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.IntConsumer;
+import java.io.*;
+
+/* 
+Class to simulate the network. System design directions:
+
+- Synchronous communication: each round lasts for 20ms, or, in logical mode, until every node has processed its messages
+- At each round the network receives the messages that the nodes want to send and delivers them
+- The network should make sure that:
+	- A node can only send messages to its neighbours
+	- A node can only send one message per neighbour per round (or as many as the link capacity allows)
+- When a node fails, the network must inform all the node's neighbours about the failure
+*/
+
+public class Network implements Simulation {
+
+    private int round;
+    private int period = 20;
+
+    private int messagesDelivered;
+
+    // Deliveries: with batching, all messages of a sender for one receiver in a round make a single frame
+    private int framesDelivered;
+
+    private boolean batching;
+
+    private RoundMode roundMode;
+
+    private ExecutionMode executionMode;
+
+    // Only used in logical mode, to wait until all delivered messages have been processed
+    private RoundBarrier roundBarrier;
+
+    // Tells when there is nothing left to deliver or handle, without looking at every node
+    private TerminationDetector terminationDetector;
+
+    // Contiguous ranges of nodes: the messages of the senders of a range are collected together, and so are the ones
+    // delivered to the receivers of a range
+    private Shard[] shards;
+
+    // Only set when delivery runs on more than one thread
+    private ForkJoinPool deliveryPool;
+
+    // Only set when the nodes run on a shared pool (see ExecutionMode.isPooled), runs the nodes that have messages to handle
+    private ForkJoinPool nodePool;
+
+    // Where the messages of a round go. Only the nodes in its range run here, the others belong to other processes.
+    private final Transport transport;
+
+    // Delivery into the mailboxes of the nodes that run here, for the transport
+    private final Transport.Mailboxes mailboxes = this::handOver;
+
+    // Range of node indexes that run here
+    private final int from;
+    private final int to;
+
+    private Topology topology;
+
+    // Indexed by the dense node index of the topology
+    private Node[] nodes;
+
+    // Stores elections for each round. Note that multiple actions is allowed for one round.
+    private HashMap<Integer, ArrayList<Action>> roundActions;
+
+    private ArrayDeque<Node> failures;
+
+    private Logger logger;
+
+    // Null unless metrics were requested
+    private Metrics metrics;
+
+    private String metricsFile;
+
+    // Null unless a trace was requested
+    private TraceRecorder trace;
+
+    // Null unless failures are found with heartbeats, instead of being told to the neighbours right away
+    private HeartbeatStats heartbeats;
+
+    // Suspected by the detectors of this process in the last round, which the ring is closed over at the start of the
+    // next one
+    private final ArrayList<Node> suspected = new ArrayList<>();
+
+    // Null unless checkpoints were requested
+    private String checkpointFile;
+
+    private int checkpointEvery;
+
+    // Written in the header of every checkpoint, see Checkpoint
+    private int[] checkpointOptions;
+
+    // Round of the last checkpoint written or resumed from
+    private int checkpointRound;
+
+    // Told about the id of every node of this process that becomes leader, if set
+    private IntConsumer leaderListener;
+
+    // Code to call methods for parsing the input file, initiating the system and producing the log can be added here.
+    public Network(String fileName) {
+
+        this(fileName, new NetworkSettings());
+    }
+
+    public Network(String fileName, NetworkSettings settings) {
+
+        this(parse(fileName), settings);
+
+        this.startNetwork();
+    }
+
+    // Builds the network without starting it, e.g. from a topology generated in memory
+    public Network(Topology topology, NetworkSettings settings) {
+
+        this(topology, settings, Logger.getInstance());
+    }
+
+    // Goes on with a run from one of its checkpoints
+    public Network(Checkpoint checkpoint, NetworkSettings settings) {
+
+        this(resumedTopology(checkpoint, settings), settings);
+
+        this.round = checkpoint.getRound();
+        this.checkpointRound = this.round;
+        this.messagesDelivered = checkpoint.getMessagesDelivered();
+        this.framesDelivered = checkpoint.getFramesDelivered();
+
+        LongQueue state = checkpoint.getState();
+        for (Node node : this.nodes){
+            node.restoreState(state);
+        }
+
+        if (this.heartbeats != null){
+            this.heartbeats.restoreState(state);
+
+            for (long i=state.poll(); i>0; i--){
+                this.suspected.add(this.nodes[(int) state.poll()]);
+            }
+        }
+
+        if (!state.isEmpty()){
+            throw new IllegalArgumentException("The checkpoint was written by a run with other options");
+        }
+    }
+
+    // Checks the options before anything is set up for the nodes of the checkpoint
+    private static Topology resumedTopology(Checkpoint checkpoint, NetworkSettings settings){
+
+        checkpoint.checkOptions(settings);
+
+        return checkpoint.getTopology();
+    }
+
+    // Same, with a logger of its own instead of the shared one
+    public Network(Topology topology, NetworkSettings settings, Logger logger) {
+
+        this(topology, settings, logger, new LocalTransport(topology.size()));
+    }
+
+    // Same, for the nodes of one out-of-process worker (see TransportWorker), or any other transport
+    public Network(Topology topology, NetworkSettings settings, Logger logger, Transport transport) {
+
+        this.transport = transport;
+        this.from = transport.getFrom();
+        this.to = transport.getTo();
+
+        this.roundMode = settings.getRoundMode();
+        this.executionMode = settings.getExecutionMode();
+        this.executionMode.checkAvailable();
+        this.batching = settings.isBatching();
+
+        this.logger = logger;
+        this.logger.configure(settings.isAsyncLogging(), settings.getLogLevel(), settings.isConsoleEcho());
+
+        this.metricsFile = settings.getMetricsFile();
+        if (this.metricsFile != null){
+            this.metrics = new Metrics();
+        }
+
+        if (settings.getTraceFile() != null){
+            try {
+                this.trace = new TraceRecorder(settings.getTraceFile());
+            } catch (IOException e) {
+                System.out.println("Unable to open the trace: " + e.toString());
+            }
+        }
+
+        this.topology = topology;
+        this.nodes = this.topology.getNodes();
+
+        if (settings.getHeartbeatPeriod() > 0){
+
+            if (this.roundMode != RoundMode.LOGICAL){
+                throw new IllegalArgumentException("Heartbeats need --rounds=logical, where the round barrier keeps the nodes from running while their detectors are ticked");
+            }
+
+            if (settings.getHeartbeatPeriod() == 1 && settings.getLinkCapacity() == 1){
+                throw new IllegalArgumentException("A heartbeat every round takes the whole capacity of a link of 1 message per round");
+            }
+
+            this.heartbeats = new HeartbeatStats();
+        }
+
+        this.checkpointFile = settings.getCheckpointFile();
+        this.checkpointEvery = settings.getCheckpointEvery();
+        this.checkpointOptions = Checkpoint.options(settings);
+
+        this.roundActions = this.topology.getRoundActions();
+        this.failures = this.topology.getFailures();
+
+        // A few shards per thread, so that a slow shard does not hold the others up
+        int threads = settings.getDeliveryThreads();
+        int local = this.to - this.from;
+        int shardCount = threads == 1 ? 1 : Math.max(1, Math.min(local, threads * 4));
+
+        this.shards = new Shard[shardCount];
+        for (int i=0; i<shardCount; i++){
+            this.shards[i] = new Shard(i, this.from + (int) ((long) local * i / shardCount),
+                    this.from + (int) ((long) local * (i + 1) / shardCount), settings.getLinkCapacity());
+        }
+
+        if (threads > 1){
+            this.deliveryPool = new ForkJoinPool(threads);
+        }
+
+        settings.getAlgorithm().prepare(this.topology, settings);
+
+        for (int i=this.from; i<this.to; i++){
+
+            Node node = this.nodes[i];
+            node.setElectionAlgorithm(settings.getAlgorithm().create(settings));
+            node.setLogger(this.logger);
+            node.setLeaderListener(this::leaderElected);
+
+            if (this.heartbeats != null){
+                node.setHeartbeatDetector(new HeartbeatDetector(this.topology, settings.getHeartbeatPeriod(), settings.getSuspectAfter(), this::suspected));
+            }
+        }
+    }
+
+    public void setLeaderListener(IntConsumer leaderListener) {
+        this.leaderListener = leaderListener;
+    }
+
+    private void leaderElected(int id){
+
+        if (this.heartbeats != null){
+            this.heartbeats.leaderElected(this.round);
+        }
+
+        if (this.leaderListener != null){
+            this.leaderListener.accept(id);
+        }
+    }
+
+    private static Topology parse(String fileName) {
+
+        try {
+            return MappedTopologyParser.parse(fileName);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new Topology();
+        }
+    }
+
+    // Starts all nodes, executes actions and failures, manages the rounds, and prints the round rate at the end.
+    public synchronized void startNetwork(){
+
+        long startTime = System.nanoTime();
+
+        this.run();
+        this.printRoundRate(startTime);
+
+        if (this.heartbeats != null){
+            System.out.println(this.heartbeats);
+        }
+    }
+
+    // Runs the whole simulation on the calling thread, without printing anything
+    @Override
+    public void run(){
+
+        this.startNodes();
+
+        while (this.runRound()) {
+        }
+
+        this.stopNetwork();
+    }
+
+    // Fire up all the nodes of this process. If we run out of threads, stop the ones already running so that the JVM
+    // can exit.
+    // On a shared pool no thread is started here: a node only runs once something is delivered to it.
+    public void startNodes(){
+
+        if (this.roundMode == RoundMode.LOGICAL){
+            this.roundBarrier = new RoundBarrier();
+        }
+
+        // Messages queued before the start, e.g. by a benchmark, were not counted by the nodes
+        this.terminationDetector = new TerminationDetector();
+        for (int i=this.from; i<this.to; i++){
+            Node node = this.nodes[i];
+            this.terminationDetector.add(node.outgoingMessages.size() + node.outgoingToPrevious.size() + node.neighbourMessages.size() / 2);
+        }
+
+        if (this.executionMode.isPooled()){
+            this.nodePool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        }
+
+        try {
+            for (int i=this.from; i<this.to; i++){
+
+                Node node = this.nodes[i];
+                node.setRoundBarrier(this.roundBarrier);
+                node.setTerminationDetector(this.terminationDetector);
+
+                if (this.nodePool != null){
+                    node.setExecutor(this.nodePool);
+                }else{
+                    this.executionMode.newThread(node, "Node-" + node.getNodeId()).start();
+                }
+            }
+        } catch (RuntimeException | OutOfMemoryError ex) {
+            this.stopNetwork();
+            throw ex;
+        }
+    }
+
+    // Runs one round. Returns false, without doing anything else, once there is nothing left to do.
+    public boolean runRound(){
+
+        boolean quiet = this.terminationDetector.isQuiescent()
+                && (this.heartbeats == null || (!this.heartbeats.hasUndetected() && this.suspected.isEmpty()));
+
+        // Between two logical rounds every mailbox is empty, so the state of the run is all in the topology, the nodes
+        // and their outgoing queues. Timed rounds only have such a boundary while the network is quiet.
+        boolean boundary = this.roundMode == RoundMode.LOGICAL || quiet;
+        if (boundary && this.checkpointFile != null && this.round - this.checkpointRound >= this.checkpointEvery){
+            this.writeCheckpoint();
+        }
+
+        this.startRound(this.round + 1);
+
+        if (this.heartbeats != null){
+            this.closeRing(this.takeSuspected());
+        }
+
+        // Check for stopping conditions. A failure that nobody has noticed yet keeps the rounds, and the heartbeats, going.
+        if (this.roundActions.size() == 0 && quiet){
+
+            // If there are no failures, then exit. Otherwise, deploy one failure at a time.
+            if (this.failures.size() == 0){
+                return false;
+            }
+
+            // Make a new node fail
+            this.failNode(this.failures.poll());
+
+            // In logical mode the ring is repaired before anything else is delivered
+            if (this.roundMode == RoundMode.LOGICAL){
+                this.roundBarrier.awaitRound();
+            }
+        }
+
+        this.finishRound();
+
+        return true;
+    }
+
+    // Runs one round of an out-of-process worker, whose coordinator decides when the run is over and which nodes fail
+    // in the round (see TransportWorker). Closed are the nodes that the detectors of every worker suspected in the last
+    // round.
+    public void runRound(int round, List<Node> failing, List<Node> closed){
+
+        this.startRound(round);
+
+        boolean failed = false;
+        for (Node node : failing){
+            failed |= this.failNode(node);
+        }
+
+        this.closeRing(closed);
+
+        if (failed && this.roundMode == RoundMode.LOGICAL){
+            this.roundBarrier.awaitRound();
+        }
+
+        this.finishRound();
+    }
+
+    private void startRound(int round){
+
+        this.round = round;
+        this.logger.debug("\n-- Round %d starting", this.round);
+
+        if (this.metrics != null){
+            this.metrics.startRound(this.round);
+        }
+    }
+
+    // The part of a round that comes after its failures
+    private void finishRound(){
+
+        // Check if there's any action to take in this round
+        this.doActions(this.round);
+
+        if (this.heartbeats != null){
+            this.tickNodes();
+        }
+
+        // Collect and deliver messages that need to be delivered in this round
+        this.deliverMessages();
+
+        this.endRound();
+
+        if (this.metrics != null){
+            this.metrics.endRound();
+        }
+    }
+
+    // Stops the node threads, closes the log and writes the metrics
+    public void stopNetwork(){
+
+        this.stopAllNodes();
+        this.logger.closeWriter();
+
+        if (this.deliveryPool != null){
+            this.deliveryPool.shutdown();
+        }
+
+        if (this.nodePool != null){
+            this.nodePool.shutdown();
+        }
+
+        if (this.trace != null){
+            try {
+                this.trace.close();
+            } catch (IOException e) {
+                System.out.println("Unable to write the trace: " + e.toString());
+            }
+        }
+
+        if (this.metrics != null){
+            try {
+                this.metrics.write(this.metricsFile);
+            } catch (IOException e) {
+                System.out.println("Unable to write metrics: " + e.toString());
+            }
+        }
+    }
+
+    private void writeCheckpoint(){
+
+        try {
+            Checkpoint.write(this.checkpointFile, this.checkpointOptions, this.round, this.messagesDelivered, this.framesDelivered,
+                    this.topology, this.heartbeats, this.suspected);
+            this.checkpointRound = this.round;
+        } catch (IOException e) {
+            System.out.println("Unable to write the checkpoint: " + e.toString());
+            return;
+        }
+
+        this.logger.debug("Checkpoint of round %d written", this.round);
+    }
+
+    // Simulate one round, either by sleeping or by waiting for the nodes to process what they received
+    private void endRound(){
+
+        if (this.roundMode == RoundMode.LOGICAL){
+            this.roundBarrier.awaitRound();
+            return;
+        }
+
+        try {
+            Thread.sleep(this.period);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void printRoundRate(long startTime){
+
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        System.out.println(String.format("%d rounds in %.3f s (%.1f rounds/s, %s rounds, %s threads)",
+                this.round, seconds, this.round / seconds, this.roundMode, this.executionMode));
+    }
+
+    @Override
+    public int getRound() {
+        return this.round;
+    }
+
+    @Override
+    public int getMessagesDelivered() {
+        return this.messagesDelivered;
+    }
+
+    public int getFramesDelivered() {
+        return this.framesDelivered;
+    }
+
+    // Messages queued or being handled, as counted by this process. The nodes of another process may handle what this
+    // one sent, so only the sum over all processes of an out-of-process run means anything.
+    public long getPendingMessages() {
+        return this.terminationDetector.getPending();
+    }
+
+    @Override
+    public Node getLeader(){
+        for (Node node : this.nodes){
+            if (node.isNodeLeader() && !this.topology.isFailed(node.getIndex())){
+                return node;
+            }
+        }
+
+        return null;
+    }
+
+    // Hands count messages, starting at position from, to a node in one go, through the transport. Messages addressed
+    // to a failed node are dropped. Returns true if they were delivered, or shipped to the process of the node.
+    private boolean deliverFrame(Node receiver, LongQueue messages, int from, int count){
+
+        if (!receiver.isActive()){
+            this.dropped(messages, from, count);
+            return false;
+        }
+
+        return this.transport.deliver(receiver, messages, from, count, this.mailboxes);
+    }
+
+    // Puts a message into the mailbox of a node of this process. Returns true if it was delivered.
+    private boolean handOver(Node receiver, long message){
+
+        if (!receiver.isActive()){
+            this.dropped(message);
+            return false;
+        }
+
+        if (this.roundBarrier != null){
+            this.roundBarrier.register();
+        }
+
+        int incomingDepth = receiver.receiveMessage(message);
+
+        // The node failed in the meantime
+        if (incomingDepth == 0){
+            this.unregister(1);
+            this.dropped(message);
+            return false;
+        }
+
+        if (this.metrics != null){
+            this.metrics.messageDelivered(receiver, message, incomingDepth);
+        }
+
+        return true;
+    }
+
+    // Same for count messages, starting at position from
+    private boolean handOver(Node receiver, LongQueue messages, int from, int count){
+
+        if (count == 1){
+            return this.handOver(receiver, messages.get(from));
+        }
+
+        if (!receiver.isActive()){
+            this.dropped(messages, from, count);
+            return false;
+        }
+
+        if (this.roundBarrier != null){
+            this.roundBarrier.register(count);
+        }
+
+        int incomingDepth = receiver.receiveMessages(messages, from, count);
+
+        if (incomingDepth == 0){
+            this.unregister(count);
+            this.dropped(messages, from, count);
+            return false;
+        }
+
+        if (this.metrics != null){
+            for (int i=from; i<from + count; i++){
+                this.metrics.messageDelivered(receiver, messages.get(i), incomingDepth);
+            }
+        }
+
+        return true;
+    }
+
+    // Messages that will never be handled are no longer counted, heartbeats never were
+    private void dropped(long message){
+        if (MessageCreator.getMessageType(message) != MessageCreator.HEARTBEAT){
+            this.terminationDetector.remove(1);
+        }
+    }
+
+    private void dropped(LongQueue messages, int from, int count){
+        this.terminationDetector.remove(this.heartbeats == null ? count : TerminationDetector.counted(messages, from, count));
+    }
+
+    private void unregister(int messages){
+        if (this.roundBarrier != null){
+            this.roundBarrier.arrive(messages);
+        }
+    }
+
+    // At each round, the network delivers all the messages that it has collected from the nodes.
+    // The network must ensure that a node can send only to its neighbours, one message per round per neighbour
+    // (or up to the configured link capacity).
+    // Every shard collects its messages before any shard delivers, so a message sent in a round is handled in the next.
+    public void deliverMessages() {
+
+        this.runShards(true);
+        this.runShards(false);
+
+        // Then the messages for the nodes of other processes, in the order of their senders
+        for (Shard shard : this.shards){
+            shard.deliver(shard.outboxes[this.shards.length]);
+        }
+
+        try {
+            this.transport.flush(this.mailboxes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        for (Shard shard : this.shards){
+            this.messagesDelivered += shard.delivered;
+            this.framesDelivered += shard.frames;
+            shard.delivered = 0;
+            shard.frames = 0;
+
+            if (this.heartbeats != null){
+                this.heartbeats.heartbeatsDelivered(shard.heartbeatsDelivered);
+                shard.heartbeatsDelivered = 0;
+            }
+        }
+    }
+
+    // Runs one phase on every shard. Metrics and the trace are not thread-safe, so with either of them the shards run
+    // one after the other, and so does the deliver phase if the transport is not.
+    private void runShards(boolean collect){
+
+        if (this.deliveryPool == null || this.metrics != null || this.trace != null || (!collect && !this.transport.isConcurrent())){
+            for (Shard shard : this.shards){
+                shard.run(collect);
+            }
+            return;
+        }
+
+        ArrayList<ForkJoinTask<?>> tasks = new ArrayList<>(this.shards.length);
+        for (Shard shard : this.shards){
+            tasks.add(this.deliveryPool.submit(() -> shard.run(collect)));
+        }
+
+        for (ForkJoinTask<?> task : tasks){
+            task.join();
+        }
+    }
+
+    private void stopAllNodes(){
+        for (Node node : this.nodes){
+            node.setActive(false);
+        }
+    }
+
+    // Executes all actions in a specific round
+    private void doActions(int round){
+        ArrayList<Action> actions = this.roundActions.get(round);
+        if (actions != null){
+
+            // Failures scheduled for this round go first, so that elections started in the same round see the repaired ring
+            boolean failed = false;
+            for (Action action : actions){
+                if (action.getType().equals(MessageCreator.FAIL_TAG)){
+                    for (Node node : action.getNodes()){
+                        failed |= this.failNode(node);
+                    }
+                }
+            }
+
+            if (failed && this.roundMode == RoundMode.LOGICAL){
+                this.roundBarrier.awaitRound();
+            }
+
+            for (Action action : actions){
+
+                switch(action.getType()){
+
+                    case MessageCreator.ELECTION_TAG:
+                        for (Node node : action.getNodes()){
+
+                            // Started by the process that runs the node
+                            if (!this.transport.isLocal(node)){
+                                continue;
+                            }
+
+                            node.startLeaderElection();
+
+                            if (this.trace != null){
+                                this.trace.start(this.round, node);
+                            }
+
+                            if (this.metrics != null){
+                                this.metrics.electionStarted(node.getNodeId());
+                            }
+                        }
+
+                        break;
+                }
+            }
+
+            this.roundActions.remove(round);
+        }
+    }
+
+    // Makes a node fail, and drops whatever it still had to send. Without a failure detector its neighbours are told
+    // right away; with one, they find out once its heartbeats stop. Returns false if the node had already failed.
+    private boolean failNode(Node failingNode){
+
+        if (this.topology.isFailed(failingNode.getIndex()) || !failingNode.isActive()){
+            return false;
+        }
+
+        this.logger.debug("Node %d FAILED", failingNode.getNodeId());
+
+        if (this.trace != null){
+            this.trace.crash(this.round, failingNode);
+        }
+
+        // Kill failed node's thread first: the neighbours react to the FAIL message on their own threads, and must
+        // not send anything to the failed node anymore
+        failingNode.setActive(false);
+        this.terminationDetector.remove(failingNode.dropOutgoingMessages());
+
+        if (this.heartbeats == null || !this.heartbeats.crashed(failingNode, this.round)){
+            this.repairRing(failingNode);
+        }
+
+        return true;
+    }
+
+    // Called on the network's thread by a detector that suspects a neighbour, see tickNodes. Several detectors may
+    // suspect the same node, only the first one counts.
+    private void suspected(Node node){
+
+        if (this.topology.isFailed(node.getIndex()) || this.suspected.contains(node)){
+            return;
+        }
+
+        this.suspected.add(node);
+        this.heartbeats.detected(node, this.round);
+    }
+
+    // The nodes suspected since the last call, for a worker to report them to its coordinator
+    public List<Node> takeSuspected(){
+
+        List<Node> taken = new ArrayList<>(this.suspected);
+        this.suspected.clear();
+
+        return taken;
+    }
+
+    // Closes the ring over the nodes that the detectors suspected. The nodes that watch them find out at their next
+    // tick. A suspected node of this process that had not crashed is taken out of the ring all the same, as if it had.
+    private void closeRing(List<Node> suspected){
+        for (Node node : suspected){
+
+            if (this.topology.isFailed(node.getIndex())){
+                continue;
+            }
+
+            this.topology.markFailed(node.getIndex());
+
+            if (this.transport.isLocal(node) && node.isActive()){
+                this.logger.debug("Node %d taken out of the ring", node.getNodeId());
+                node.setActive(false);
+                this.terminationDetector.remove(node.dropOutgoingMessages());
+            }
+        }
+    }
+
+    // Closes the ring over a failed node, then informs all its neighbours. Every process closes the ring, and tells
+    // the neighbours that run in it.
+    private void repairRing(Node failedNode){
+
+        this.topology.markFailed(failedNode.getIndex());
+
+        for (Node neighbour : failedNode.getNeighbours()){
+
+            if (!this.transport.isLocal(neighbour)){
+                continue;
+            }
+
+            this.terminationDetector.add(1);
+
+            long message = MessageCreator.createFailMessage(failedNode.getNodeId());
+            if (this.handOver(neighbour, message)){
+                this.messagesDelivered++;
+                this.framesDelivered++;
+
+                if (this.trace != null){
+                    this.trace.delivery(this.round, failedNode, neighbour, message);
+                }
+            }
+        }
+    }
+
+    // Lets the failure detector of every node count the round and queue its heartbeats. In logical mode the nodes that
+    // found out about a failure handle it before anything else is delivered, as they do with the FAIL messages above.
+    private void tickNodes(){
+
+        boolean failures = false;
+        for (int i=this.from; i<this.to; i++){
+            if (this.nodes[i].isActive()){
+                failures |= this.nodes[i].tick(this.round);
+            }
+        }
+
+        if (failures && this.roundMode == RoundMode.LOGICAL){
+            this.roundBarrier.awaitRound();
+        }
+    }
+
+    public HeartbeatStats getHeartbeatStats(){
+        return this.heartbeats;
+    }
+
+    // The nodes of one range of node indexes. In the collect phase the shard takes the messages its nodes send, sorted
+    // by the shard of their receivers; in the deliver phase it hands its nodes what every shard collected for them, so
+    // that a mailbox is only ever written by one thread at a time.
+    private class Shard implements LinkScheduler.Sink {
+
+        // Position in shards
+        private final int number;
+
+        private final int from;
+        private final int to;
+
+        private final LinkScheduler scheduler;
+
+        // Indexed by the shard of the receivers, followed by the one for the receivers of other processes
+        private Outbox[] outboxes;
+
+        private int delivered;
+        private int frames;
+
+        // Heartbeats delivered, which are not counted in delivered
+        private int heartbeatsDelivered;
+
+        private Shard(int number, int from, int to, int linkCapacity){
+            this.number = number;
+            this.from = from;
+            this.to = to;
+            this.scheduler = new LinkScheduler(topology, linkCapacity);
+        }
+
+        private void run(boolean collect){
+            if (collect){
+                this.collect();
+            }else{
+                this.deliver();
+            }
+        }
+
+        // Takes the messages each node of the shard can send in this round
+        private void collect(){
+
+            if (this.outboxes == null){
+                this.outboxes = new Outbox[shards.length + 1];
+                for (int i=0; i<=shards.length; i++){
+                    this.outboxes[i] = new Outbox();
+                }
+            }
+
+            for (int i=this.from; i<this.to; i++){
+                this.scheduler.collect(nodes[i], this);
+            }
+        }
+
+        @Override
+        public void add(Node sender, long message, Node receiver, int queueDepth){
+
+            Outbox outbox = this.outboxes[transport.isLocal(receiver) ? shardOf(receiver.getIndex()) : shards.length];
+            outbox.senders.add(sender);
+            outbox.messages.add(message);
+            outbox.receivers.add(receiver);
+
+            if (metrics != null){
+                metrics.messageCollected(queueDepth);
+                metrics.messageSent(sender, message);
+            }
+        }
+
+        // Hands the messages collected for the nodes of this shard to them, shard by shard
+        private void deliver(){
+
+            for (Shard shard : shards){
+                this.deliver(shard.outboxes[this.number]);
+            }
+        }
+
+        // With batching, all messages of a sender for the same receiver go in one frame, otherwise every message is a
+        // frame of its own.
+        private void deliver(Outbox outbox){
+
+            int i = 0;
+            while (i < outbox.senders.size()){
+
+                Node sender = outbox.senders.get(i);
+                Node receiver = outbox.receivers.get(i);
+
+                int end = i + 1;
+                while (batching && end < outbox.senders.size() && outbox.senders.get(end) == sender && outbox.receivers.get(end) == receiver){
+                    end++;
+                }
+
+                int counted = heartbeats == null ? end - i : TerminationDetector.counted(outbox.messages, i, end - i);
+
+                if (deliverFrame(receiver, outbox.messages, i, end - i)){
+                    this.delivered += counted;
+                    this.heartbeatsDelivered += end - i - counted;
+                    this.frames++;
+
+                    if (trace != null){
+                        for (int k=i; k<end; k++){
+                            trace.delivery(round, sender, receiver, outbox.messages.get(k));
+                        }
+                    }
+                }
+
+                i = end;
+            }
+
+            outbox.senders.clear();
+            outbox.messages.clear();
+            outbox.receivers.clear();
+        }
+    }
+
+    // Messages collected by one shard for the nodes of another. Senders, their messages and the receivers are at the
+    // same positions, and messages of one sender for one receiver are always next to each other.
+    private static class Outbox {
+
+        private final ArrayList<Node> senders = new ArrayList<>();
+        private final LongQueue messages = new LongQueue();
+        private final ArrayList<Node> receivers = new ArrayList<>();
+    }
+
+    // The shard whose range holds the index of a node of this process
+    private int shardOf(int index){
+
+        int shard = (int) ((long) (index - this.from) * this.shards.length / (this.to - this.from));
+        while (index < this.shards[shard].from){
+            shard--;
+        }
+        while (index >= this.shards[shard].to){
+            shard++;
+        }
+
+        return shard;
+    }
+
+    public static void main(String args[]) throws IOException, InterruptedException {
+
+        String fileName = args[0];
+        NetworkSettings settings = NetworkSettings.fromArgs(args, 1);
+
+        if (settings.getProcesses() > 0){
+            new Coordinator(fileName, settings, Arrays.copyOfRange(args, 1, args.length)).run();
+            return;
+        }
+
+        // The input file is not read again when resuming
+        if (settings.getResumeFile() != null){
+            new Network(Checkpoint.read(settings.getResumeFile()), settings).startNetwork();
+            return;
+        }
+
+        Network network = new Network(fileName, settings);
+    }
+}
@@ -0,0 +1,309 @@
+package election;
+
+// Options of a simulation run. They can be given on the command line after the input file, e.g. --rounds=sleep
+public class NetworkSettings {
+
+    private RoundMode roundMode = RoundMode.LOGICAL;
+
+    private ExecutionMode executionMode = ExecutionMode.PLATFORM;
+
+    // Threads that collect and deliver the messages of a round, 1 to do it on the network's own thread
+    private int deliveryThreads = 1;
+
+    // Messages a node can send over one link in one round
+    private int linkCapacity = 1;
+
+    // Send the messages for one link in a round as a single frame
+    private boolean batching = false;
+
+    // Let Chang-Roberts drop ELECT messages with a smaller id than one it already sent on
+    private boolean dropDominated = false;
+
+    private Algorithm algorithm = Algorithm.CHANG_ROBERTS;
+
+    private boolean asyncLogging = false;
+
+    private Logger.Level logLevel = Logger.Level.TRACE;
+
+    private boolean consoleEcho = true;
+
+    // Where to write the metrics at the end of the run, or null to not collect them
+    private String metricsFile = null;
+
+    // Where to record the binary trace of the run, or null to not record it
+    private String traceFile = null;
+
+    // Worker processes that share the nodes, talking over loopback sockets. 0 runs every node in this JVM.
+    private int processes = 0;
+
+    // Rounds between heartbeats of the threaded network's failure detector, 0 to tell the neighbours of a failed node
+    // right away instead
+    private int heartbeatPeriod = 0;
+
+    // Rounds without a heartbeat after which a neighbour is suspected, 0 for three heartbeat periods
+    private int suspectAfter = 0;
+
+    // Segments of the ring for the hierarchical election, 0 for about the square root of the number of nodes
+    private int segments = 0;
+
+    // Where the threaded network writes its checkpoints, or null to not write any
+    private String checkpointFile = null;
+
+    // Rounds between checkpoints. In timed rounds a checkpoint waits for the first quiet round after that.
+    private int checkpointEvery = 1000;
+
+    // Checkpoint to resume the run from, instead of the input file
+    private String resumeFile = null;
+
+    public RoundMode getRoundMode() {
+        return roundMode;
+    }
+
+    public void setRoundMode(RoundMode roundMode) {
+        this.roundMode = roundMode;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    public void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
+
+    public int getDeliveryThreads() {
+        return deliveryThreads;
+    }
+
+    public void setDeliveryThreads(int deliveryThreads) {
+        this.deliveryThreads = deliveryThreads;
+    }
+
+    public int getLinkCapacity() {
+        return linkCapacity;
+    }
+
+    public void setLinkCapacity(int linkCapacity) {
+        this.linkCapacity = linkCapacity;
+    }
+
+    public boolean isBatching() {
+        return batching;
+    }
+
+    public void setBatching(boolean batching) {
+        this.batching = batching;
+    }
+
+    public boolean isDropDominated() {
+        return dropDominated;
+    }
+
+    public void setDropDominated(boolean dropDominated) {
+        this.dropDominated = dropDominated;
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public void setAlgorithm(Algorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    public boolean isAsyncLogging() {
+        return asyncLogging;
+    }
+
+    public void setAsyncLogging(boolean asyncLogging) {
+        this.asyncLogging = asyncLogging;
+    }
+
+    public Logger.Level getLogLevel() {
+        return logLevel;
+    }
+
+    public void setLogLevel(Logger.Level logLevel) {
+        this.logLevel = logLevel;
+    }
+
+    public boolean isConsoleEcho() {
+        return consoleEcho;
+    }
+
+    public void setConsoleEcho(boolean consoleEcho) {
+        this.consoleEcho = consoleEcho;
+    }
+
+    public String getMetricsFile() {
+        return metricsFile;
+    }
+
+    public void setMetricsFile(String metricsFile) {
+        this.metricsFile = metricsFile;
+    }
+
+    public String getTraceFile() {
+        return traceFile;
+    }
+
+    public void setTraceFile(String traceFile) {
+        this.traceFile = traceFile;
+    }
+
+    public int getProcesses() {
+        return processes;
+    }
+
+    public void setProcesses(int processes) {
+        this.processes = processes;
+    }
+
+    public int getHeartbeatPeriod() {
+        return heartbeatPeriod;
+    }
+
+    public void setHeartbeatPeriod(int heartbeatPeriod) {
+        this.heartbeatPeriod = heartbeatPeriod;
+    }
+
+    public int getSuspectAfter() {
+        return suspectAfter > 0 ? suspectAfter : 3 * heartbeatPeriod;
+    }
+
+    public void setSuspectAfter(int suspectAfter) {
+        this.suspectAfter = suspectAfter;
+    }
+
+    public int getSegments() {
+        return segments;
+    }
+
+    public void setSegments(int segments) {
+        this.segments = segments;
+    }
+
+    public String getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    public void setCheckpointFile(String checkpointFile) {
+        this.checkpointFile = checkpointFile;
+    }
+
+    public int getCheckpointEvery() {
+        return checkpointEvery;
+    }
+
+    public void setCheckpointEvery(int checkpointEvery) {
+        this.checkpointEvery = checkpointEvery;
+    }
+
+    public String getResumeFile() {
+        return resumeFile;
+    }
+
+    public void setResumeFile(String resumeFile) {
+        this.resumeFile = resumeFile;
+    }
+
+    // Reads --name=value options, starting at the given position
+    public static NetworkSettings fromArgs(String[] args, int from){
+
+        NetworkSettings settings = new NetworkSettings();
+
+        for (int i=from; i<args.length; i++){
+
+            String[] parts = args[i].split("=", 2);
+            if (parts.length != 2 || !parts[0].startsWith("--")){
+                throw new IllegalArgumentException("Expected --name=value but got " + args[i]);
+            }
+
+            String value = parts[1].toUpperCase();
+
+            switch (parts[0]){
+
+                case "--rounds":
+                    settings.setRoundMode(RoundMode.valueOf(value));
+                    break;
+
+                case "--threads":
+                    settings.setExecutionMode(ExecutionMode.valueOf(value));
+                    break;
+
+                case "--delivery-threads":
+                    settings.setDeliveryThreads(Integer.parseInt(value));
+                    break;
+
+                case "--link-capacity":
+                    settings.setLinkCapacity(Integer.parseInt(value));
+                    break;
+
+                case "--batching":
+                    settings.setBatching(Boolean.parseBoolean(parts[1]));
+                    break;
+
+                case "--drop-dominated":
+                    settings.setDropDominated(Boolean.parseBoolean(parts[1]));
+                    break;
+
+                case "--algorithm":
+                    settings.setAlgorithm(Algorithm.valueOf(value.replace('-', '_')));
+                    break;
+
+                case "--log":
+                    settings.setAsyncLogging(value.equals("ASYNC"));
+                    break;
+
+                case "--level":
+                    settings.setLogLevel(Logger.Level.valueOf(value));
+                    break;
+
+                case "--echo":
+                    settings.setConsoleEcho(Boolean.parseBoolean(parts[1]));
+                    break;
+
+                case "--metrics":
+                    settings.setMetricsFile(parts[1]);
+                    break;
+
+                case "--trace":
+                    settings.setTraceFile(parts[1]);
+                    break;
+
+                case "--processes":
+                    settings.setProcesses(Integer.parseInt(value));
+                    break;
+
+                case "--heartbeat":
+                    settings.setHeartbeatPeriod(Integer.parseInt(value));
+                    break;
+
+                case "--suspect-after":
+                    settings.setSuspectAfter(Integer.parseInt(value));
+                    break;
+
+                case "--segments":
+                    settings.setSegments(Integer.parseInt(value));
+                    break;
+
+                case "--checkpoint":
+                    settings.setCheckpointFile(parts[1]);
+                    break;
+
+                case "--checkpoint-every":
+                    settings.setCheckpointEvery(Integer.parseInt(value));
+                    break;
+
+                case "--resume":
+                    settings.setResumeFile(parts[1]);
+                    break;
+
+                default:
+                    throw new IllegalArgumentException("Unknown option " + parts[0]);
+            }
+        }
+
+        return settings;
+    }
+}
@@ -0,0 +1,479 @@
+package election;
+
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.IntConsumer;
+
+// Class to represent a node. A node is a Runnable that handles what arrives in its mailbox: either on a thread of its
+// own that the network starts and that sleeps while the mailbox is empty, or, in a pooled mode, as a task that
+// schedule() puts on the shared executor when a message is delivered and that ends once the mailbox is empty.
+public class Node implements Runnable {
+
+    private int id;
+
+    // Dense index of the node in the topology, which holds its ring links and neighbours
+    private int index;
+
+    private Topology topology;
+    private boolean leader = false;
+
+    private ElectionAlgorithm election;
+
+    private volatile boolean active = true;
+
+    // Set by the network that runs the node, the shared logger until then
+    private Logger logger;
+
+    // Set in logical round mode, notified each time a delivered message has been processed
+    private RoundBarrier roundBarrier;
+
+    // Set by the threaded network, told about every message queued and handled
+    private TerminationDetector terminationDetector;
+
+    // Told about the id of every node that becomes leader: set by out-of-process workers, and by the network to time
+    // re-elections when failures are found with heartbeats
+    private IntConsumer leaderListener;
+
+    // Null unless failures are found with heartbeats, see HeartbeatDetector
+    private HeartbeatDetector heartbeats;
+
+    // Set when the nodes run on a shared pool: the node has no thread of its own, and runs on this executor while it has messages
+    private Executor executor;
+
+    // 1 while the node is scheduled on the executor or running on it
+    private volatile int scheduled;
+
+    private static final AtomicIntegerFieldUpdater<Node> SCHEDULED = AtomicIntegerFieldUpdater.newUpdater(Node.class, "scheduled");
+
+    // Messages being handled by a pool thread, whichever node it runs
+    private static final ThreadLocal<LongQueue> BATCH = ThreadLocal.withInitial(LongQueue::new);
+
+    // Incoming messages, in the mailbox arena of the topology at the node's index
+    private final MailboxArena mailboxes;
+
+    // Queue for the outgoing messages to the next node
+    public final LongQueue outgoingMessages;
+
+    // Queue for the outgoing messages to the previous node, only used by bidirectional algorithms
+    public final LongQueue outgoingToPrevious;
+
+    // Queue for the outgoing messages to individual neighbours, as (message, neighbour index) pairs.
+    // Only used by graph algorithms.
+    public final LongQueue neighbourMessages;
+
+    // Queue for the outgoing heartbeats, as (heartbeat, neighbour index) pairs. Sent ahead of everything else on their
+    // links, and not counted by the termination detector.
+    public final LongQueue heartbeatMessages;
+
+    public Node(int id, int index, Topology topology){
+
+        this.id = id;
+        this.index = index;
+        this.topology = topology;
+
+        this.mailboxes = topology.getMailboxes();
+        this.mailboxes.ensure(index);
+        this.outgoingMessages = new LongQueue();
+        this.outgoingToPrevious = new LongQueue();
+        this.neighbourMessages = new LongQueue();
+        this.heartbeatMessages = new LongQueue();
+        this.election = new ChangRoberts();
+    }
+
+    public int getNodeId() {
+        return this.id;
+    }
+
+    public boolean isNodeLeader() {
+        return this.leader;
+    }
+
+    // Used by out-of-process workers to mirror the leader flag of a node that runs in another process
+    public void setNodeLeader(boolean leader) {
+        this.leader = leader;
+    }
+
+    public int getIndex() {
+        return this.index;
+    }
+
+    public Logger getLogger() {
+        return this.logger != null ? this.logger : Logger.getInstance();
+    }
+
+    public void setLogger(Logger logger) {
+        this.logger = logger;
+    }
+
+    public void setElectionAlgorithm(ElectionAlgorithm election) {
+        this.election = election;
+    }
+
+    // State for checkpoints, taken between two rounds when the mailbox is empty: whether the node is active, its
+    // outgoing queues, and the state of its algorithm and of its failure detector
+    public void saveState(LongQueue state) {
+
+        state.add(this.active ? 1 : 0);
+
+        Checkpoint.saveQueue(state, this.outgoingMessages);
+        Checkpoint.saveQueue(state, this.outgoingToPrevious);
+        Checkpoint.saveQueue(state, this.neighbourMessages);
+        Checkpoint.saveQueue(state, this.heartbeatMessages);
+
+        this.election.saveState(state);
+
+        if (this.heartbeats != null){
+            this.heartbeats.saveState(state);
+        }
+    }
+
+    // Reads back what saveState wrote, before the node is started
+    public void restoreState(LongQueue state) {
+
+        if (state.poll() == 0 && this.active){
+            this.setActive(false);
+        }
+
+        Checkpoint.restoreQueue(state, this.outgoingMessages);
+        Checkpoint.restoreQueue(state, this.outgoingToPrevious);
+        Checkpoint.restoreQueue(state, this.neighbourMessages);
+        Checkpoint.restoreQueue(state, this.heartbeatMessages);
+
+        this.election.restoreState(state, this.topology);
+
+        if (this.heartbeats != null){
+            this.heartbeats.restoreState(state);
+        }
+    }
+
+    public List<Node> getNeighbours() {
+        return this.topology.getNeighbours(this.index);
+    }
+
+    public Node getNextNode() {
+        return this.topology.getNode(this.topology.getNext(this.index));
+    }
+
+    public void setNextNode(Node nextNode) {
+        this.topology.setNext(this.index, nextNode == null ? -1 : nextNode.getIndex());
+    }
+
+    public Node getPreviousNode() {
+        return this.topology.getNode(this.topology.getPrevious(this.index));
+    }
+
+    public void setPreviousNode(Node previousNode) {
+        this.topology.setPrevious(this.index, previousNode == null ? -1 : previousNode.getIndex());
+    }
+
+    // Only for segmented rings, see Topology.segment
+    public boolean isSegmentHead() {
+        return this.topology.isSegmentHead(this.index);
+    }
+
+    public Node getSegmentNext() {
+        return this.topology.getNode(this.topology.getSegmentNext(this.index));
+    }
+
+    public Node getOverlayNext() {
+        return this.topology.getNode(this.topology.getOverlayNext(this.index));
+    }
+
+    public boolean isActive() {
+        return this.active;
+    }
+
+    public void setActive(boolean active) {
+        this.active = active;
+
+        // Wake the thread up so that it can exit. Whatever was still waiting in the mailbox is dropped.
+        if (!active){
+
+            // Heartbeats are not counted by the termination detector, so the ones in the mailbox are told apart
+            LongQueue waiting = new LongQueue();
+            if (this.heartbeats != null){
+                this.mailboxes.poll(this.index, waiting);
+            }
+
+            int dropped = waiting.size() + this.mailboxes.close(this.index);
+
+            if (this.roundBarrier != null){
+                this.roundBarrier.arrive(dropped);
+            }
+
+            if (this.terminationDetector != null){
+                this.terminationDetector.remove(dropped - waiting.size() + TerminationDetector.counted(waiting, 0, waiting.size()));
+            }
+        }
+    }
+
+    // Empties the outgoing queues of a failed node. Returns the number of messages dropped, heartbeats left out.
+    public int dropOutgoingMessages() {
+
+        int dropped = this.outgoingMessages.size() + this.outgoingToPrevious.size() + this.neighbourMessages.size() / 2;
+
+        this.outgoingMessages.clear();
+        this.outgoingToPrevious.clear();
+        this.neighbourMessages.clear();
+        this.heartbeatMessages.clear();
+
+        return dropped;
+    }
+
+    public boolean hasOutgoingMessages() {
+        return !this.outgoingMessages.isEmpty() || !this.outgoingToPrevious.isEmpty() || !this.neighbourMessages.isEmpty();
+    }
+
+    public void setRoundBarrier(RoundBarrier roundBarrier) {
+        this.roundBarrier = roundBarrier;
+    }
+
+    public void setTerminationDetector(TerminationDetector terminationDetector) {
+        this.terminationDetector = terminationDetector;
+    }
+
+    public void setLeaderListener(IntConsumer leaderListener) {
+        this.leaderListener = leaderListener;
+    }
+
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    public void setHeartbeatDetector(HeartbeatDetector heartbeats) {
+        this.heartbeats = heartbeats;
+    }
+
+    // Called by the network once per round, before it collects the messages of the round. Returns true if the node
+    // found out about a failure, which it handles once it runs.
+    public boolean tick(int round) {
+        return this.heartbeats != null && this.heartbeats.tick(this, round);
+    }
+
+    public void run(){
+
+        LongQueue batch = new LongQueue();
+
+        // Sleep until something is delivered, handle it, and report back to the round barrier
+        while (this.active && this.mailboxes.takeAll(this.index, batch)){
+            this.handleBatch(batch);
+        }
+    }
+
+    // Runs on the executor of a pooled mode: handles messages until the mailbox is empty, then gives the thread back
+    private void drain(){
+
+        LongQueue batch = BATCH.get();
+
+        while (true){
+
+            while (this.active && this.mailboxes.poll(this.index, batch)){
+                this.handleBatch(batch);
+            }
+
+            this.scheduled = 0;
+
+            // A message delivered since the last poll saw the node still scheduled, so it has to be picked up here
+            if (!this.active || this.mailboxes.isEmpty(this.index) || !SCHEDULED.compareAndSet(this, 0, 1)){
+                return;
+            }
+        }
+    }
+
+    // Puts the node on the executor, unless it is there already
+    private void schedule(){
+        if (this.scheduled == 0 && SCHEDULED.compareAndSet(this, 0, 1)){
+            this.executor.execute(this::drain);
+        }
+    }
+
+    private void handleBatch(LongQueue batch){
+
+        for (int i=0; i<batch.size(); i++){
+            this.handleMessage(batch.get(i));
+        }
+
+        // Before the barrier, so that the count is up to date when the round ends
+        if (this.terminationDetector != null){
+            this.terminationDetector.remove(this.heartbeats == null ? batch.size() : TerminationDetector.counted(batch, 0, batch.size()));
+        }
+
+        if (this.roundBarrier != null){
+            this.roundBarrier.arrive(batch.size());
+        }
+
+        batch.clear();
+    }
+
+    // Handles one incoming message. Called by the node's own thread, or directly by the discrete-event simulator.
+    public void handleMessage(long message){
+
+        boolean fromNext = MessageCreator.isBackward(message);
+        message = MessageCreator.withoutDirection(message);
+
+        switch (MessageCreator.getMessageType(message)){
+            case MessageCreator.LEADER:
+
+                int leaderId = MessageCreator.getLeaderIdFromLeaderMessage(message);
+
+                this.getLogger().trace("Node %d received leader message with id %d.", this.id, leaderId);
+
+                this.election.handleLeaderMessage(this, message);
+
+                break;
+
+            case MessageCreator.FAIL:
+
+                int failNodeId = MessageCreator.getFailedNodeIdFromFailMessage(message);
+                Node failNode = this.topology.getNodeWithId(failNodeId);
+
+                // The ring has already been closed over the failed node by Topology.markFailed, and the new ring
+                // links count as neighbours from now on. The algorithm decides whether a new election is needed.
+                this.election.nodeFailed(this, failNode);
+
+                break;
+
+            case MessageCreator.HEARTBEAT:
+
+                if (this.heartbeats != null){
+                    this.heartbeats.heard(this.topology.getNodeWithId(MessageCreator.getSenderIdFromHeartbeatMessage(message)).getIndex());
+                }
+
+                break;
+
+            default:
+                this.election.handleMessage(this, message, fromNext);
+        }
+    }
+
+    // Method that implements the reception of an incoming message by a node
+    // Returns the number of messages waiting to be handled, including this one
+    public int receiveMessage(long message) {
+
+        int depth = this.mailboxes.put(this.index, message);
+
+        if (this.executor != null && depth > 0){
+            this.schedule();
+        }
+
+        return depth;
+    }
+
+    // Reception of a frame of several messages from one sender
+    public int receiveMessages(LongQueue frame, int from, int count) {
+
+        if (this.executor == null){
+            return this.mailboxes.putAll(this.index, frame, from, count);
+        }
+
+        // A full mailbox only empties once the node runs, so it is scheduled after every mailbox worth of messages
+        int depth = 0;
+        for (int i=from; i<from + count; i+=MailboxArena.SLOTS){
+
+            depth = this.mailboxes.putAll(this.index, frame, i, Math.min(MailboxArena.SLOTS, from + count - i));
+            if (depth == 0){
+                return 0;
+            }
+
+            this.schedule();
+        }
+
+        return depth;
+    }
+
+    // Called by the network when it takes the first outgoing message of one of the queues of this node.
+    // Messages taken from outgoingToPrevious are marked as backward.
+    public void sendMessage(long message) {
+
+        if (MessageCreator.isBackward(message)){
+            this.outgoingToPrevious.poll();
+        }else{
+            this.outgoingMessages.poll();
+        }
+
+        this.election.messageSent(this, MessageCreator.withoutDirection(message));
+    }
+
+    // Called by the network when it takes a message from neighbourMessages
+    public void neighbourMessageSent(long message) {
+
+        this.election.messageSent(this, message);
+    }
+
+    // Queues a message for the next node
+    public void send(long message){
+        this.outgoingMessages.add(message);
+        this.queued();
+    }
+
+    // Queues a message for the previous node if backward is true, for the next node otherwise
+    public void send(long message, boolean backward){
+        (backward ? this.outgoingToPrevious : this.outgoingMessages).add(message);
+        this.queued();
+    }
+
+    // Queues a message for one neighbour. A node can only send messages to its neighbours.
+    public void send(long message, Node neighbour){
+
+        int target = neighbour.getIndex();
+        if (!this.topology.isNeighbour(this.index, target)
+                && target != this.topology.getNext(this.index) && target != this.topology.getPrevious(this.index)
+                && !this.topology.isShortcut(this.index, target)){
+            throw new IllegalArgumentException(String.format("Node %d is not a neighbour of node %d", neighbour.getNodeId(), this.id));
+        }
+
+        this.neighbourMessages.add(message);
+        this.neighbourMessages.add(target);
+        this.queued();
+    }
+
+    // Queues a heartbeat for a neighbour, see HeartbeatDetector
+    public void sendHeartbeat(int neighbour){
+        this.heartbeatMessages.add(MessageCreator.createHeartbeatMessage(this.id));
+        this.heartbeatMessages.add(neighbour);
+    }
+
+    // The node found out that a neighbour failed, and the ring is already closed over it. The failure is handled on
+    // the node's own thread, like a FAIL message from the network.
+    public void neighbourFailed(Node failedNode){
+
+        if (this.roundBarrier != null){
+            this.roundBarrier.register();
+        }
+
+        this.queued();
+
+        if (this.receiveMessage(MessageCreator.createFailMessage(failedNode.getNodeId())) == 0){
+            if (this.roundBarrier != null){
+                this.roundBarrier.arrive(1);
+            }
+
+            if (this.terminationDetector != null){
+                this.terminationDetector.remove(1);
+            }
+        }
+    }
+
+    private void queued(){
+        if (this.terminationDetector != null){
+            this.terminationDetector.add(1);
+        }
+    }
+
+    // Called by the election algorithm of the winner: announces it, around the ring unless the algorithm says otherwise
+    public void becomeLeader(int initializerId){
+        this.leader = true;
+        this.election.announceLeader(this, MessageCreator.createLeaderMessage(initializerId, this.id));
+
+        this.getLogger().log("LEADER %d", this.id);
+
+        if (this.leaderListener != null){
+            this.leaderListener.accept(this.id);
+        }
+    }
+
+    public void startLeaderElection(){
+        this.election.start(this);
+    }
+}
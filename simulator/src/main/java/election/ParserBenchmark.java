@@ -0,0 +1,37 @@
+package election;
+
+import java.io.*;
+
+/*
+Parses an input file with both parsers and reports their throughput.
+Usage: java ParserBenchmark <input file> [iterations]   (default: 5 iterations, after one warm-up run each)
+*/
+public class ParserBenchmark {
+
+    public static void main(String args[]) throws IOException {
+
+        String fileName = args[0];
+        int iterations = args.length > 1 ? Integer.valueOf(args[1]) : 5;
+        double megabytes = new File(fileName).length() / 1e6;
+
+        for (String parser : new String[]{"reader", "mapped"}){
+
+            Topology topology = parse(parser, fileName);
+
+            long startTime = System.nanoTime();
+            for (int i=0; i<iterations; i++){
+                topology = parse(parser, fileName);
+            }
+            double seconds = (System.nanoTime() - startTime) / 1e9 / iterations;
+
+            System.out.println(String.format("%s: %d nodes, %.1f MB in %.3f s (%.1f MB/s)",
+                    parser, topology.size(), megabytes, seconds, megabytes / seconds));
+        }
+
+        Logger.getInstance().closeWriter();
+    }
+
+    private static Topology parse(String parser, String fileName) throws IOException {
+        return parser.equals("mapped") ? MappedTopologyParser.parse(fileName) : TopologyParser.parse(fileName);
+    }
+}
@@ -0,0 +1,49 @@
+package election;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Barrier used by the logical round mode. The network registers one party for every message it hands to a node,
+// and the node arrives once it has processed that message. The round is over when no party is left.
+public class RoundBarrier {
+
+    // Number of delivered messages that have not been processed yet
+    private final AtomicInteger pending;
+
+    // Thread waiting for the end of the round, if any
+    private volatile Thread waiter;
+
+    public RoundBarrier(){
+        this.pending = new AtomicInteger();
+    }
+
+    public void register(){
+        this.pending.incrementAndGet();
+    }
+
+    public void register(int parties){
+        this.pending.addAndGet(parties);
+    }
+
+    public void arrive(){
+        this.arrive(1);
+    }
+
+    public void arrive(int parties){
+        if (this.pending.addAndGet(-parties) == 0){
+            Thread waiter = this.waiter;
+            if (waiter != null){
+                LockSupport.unpark(waiter);
+            }
+        }
+    }
+
+    // Blocks until every registered message has been processed
+    public void awaitRound(){
+        this.waiter = Thread.currentThread();
+        while (this.pending.get() != 0){
+            LockSupport.park(this);
+        }
+        this.waiter = null;
+    }
+}
@@ -0,0 +1,11 @@
+package election;
+
+// How the network decides that a round is over
+public enum RoundMode {
+
+    // Each round lasts a fixed period of wall time, as in a real synchronous system
+    SLEEP,
+
+    // A round ends as soon as every node has processed the messages delivered to it in that round
+    LOGICAL
+}
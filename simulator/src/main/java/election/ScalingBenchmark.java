@@ -0,0 +1,74 @@
+package election;
+
+import java.io.*;
+
+/*
+Elects a leader on generated rings of increasing size, once per execution mode, and reports how long each run took.
+Usage: java ScalingBenchmark [size...]   (default sizes: 1000 10000 100000)
+
+Platform threads are expected to hit the operating system's thread limit on the largest rings. Virtual threads need
+Java 21, and are skipped on older JVMs. Only the LEADER lines are logged, so that the times are those of the runs and
+not of writing every message to the console. ScalingTest checks the 10k ring as part of the build.
+*/
+public class ScalingBenchmark {
+
+    public static void main(String args[]) throws IOException {
+
+        int[] sizes = {1000, 10000, 100000};
+        if (args.length > 0){
+            sizes = new int[args.length];
+            for (int i=0; i<args.length; i++){
+                sizes[i] = Integer.valueOf(args[i]);
+            }
+        }
+
+        for (int size : sizes){
+
+            File input = writeRing(size);
+
+            for (ExecutionMode mode : ExecutionMode.values()){
+
+                if (mode == ExecutionMode.VIRTUAL && !ExecutionMode.hasVirtualThreads()){
+                    System.out.println(String.format("RESULT ring=%d threads=%s skipped: needs Java 21", size, mode));
+                    continue;
+                }
+
+                NetworkSettings settings = new NetworkSettings();
+                settings.setExecutionMode(mode);
+                settings.setLogLevel(Logger.Level.INFO);
+                settings.setConsoleEcho(false);
+
+                long startTime = System.nanoTime();
+                try {
+                    Network network = new Network(input.getPath(), settings);
+                    Node leader = network.getLeader();
+
+                    System.out.println(String.format("RESULT ring=%d threads=%s leader=%s rounds=%d time=%.3fs",
+                            size, mode, leader == null ? "none" : leader.getNodeId(), network.getRound(),
+                            (System.nanoTime() - startTime) / 1e9));
+
+                    if (leader == null || leader.getNodeId() != size){
+                        throw new IllegalStateException("Expected node " + size + " to be elected");
+                    }
+                } catch (OutOfMemoryError ex) {
+                    System.out.println(String.format("RESULT ring=%d threads=%s failed: %s", size, mode, ex));
+                }
+            }
+
+            input.delete();
+        }
+    }
+
+    // Ring 1 -> 2 -> ... -> size -> 1, with a single election started in the first round
+    private static File writeRing(int size) throws IOException {
+
+        File file = File.createTempFile("ring-" + size + "-", ".txt");
+
+        WorkloadGenerator generator = new WorkloadGenerator();
+        generator.setNodes(size);
+        generator.setOrder("sorted");
+        generator.write(file.getPath());
+
+        return file;
+    }
+}
@@ -0,0 +1,19 @@
+package election;
+
+/*
+One simulation run. Each instance owns its topology, its nodes and its logger, so several of them can run side by side
+in one JVM, e.g. in a SweepRunner. Network runs the nodes on threads of their own, DiscreteEventSimulator on the
+calling thread.
+*/
+public interface Simulation {
+
+    // Runs until there is nothing left to do, then closes the logger
+    void run();
+
+    int getRound();
+
+    int getMessagesDelivered();
+
+    // The node that became leader and has not failed, or null if there is none
+    Node getLeader();
+}
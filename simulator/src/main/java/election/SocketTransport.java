@@ -0,0 +1,403 @@
+package election;
+
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+
+/*
+Transport of an out-of-process worker, which runs the nodes of one contiguous range of indexes. Messages for its own
+nodes are kept until the round is flushed. Messages for the nodes of another worker are packed into one frame per
+worker and round:
+
+    int length      number of bytes that follow
+    int round
+    int count
+    count times     int receiver index, long message
+
+At the end of every round each worker sends one frame, possibly empty, to every other worker over non-blocking
+loopback sockets, and reads one frame from each. Frames are built in direct buffers and written together with their
+header by a gathering write.
+
+Once the frames are exchanged the worker hands its nodes what they got, worker by worker in the order of their
+numbers, with its own messages in its own place. The ranges are contiguous, and the network collects each worker's
+messages in the order of their senders, so every receiver gets its messages in the order of their senders' indexes,
+the same as in a single process.
+
+Workers connect to the workers with a smaller number, and accept connections from the ones with a larger number.
+*/
+public class SocketTransport implements Transport {
+
+    private static final int HEADER = 12;
+
+    private static final int ENTRY = 12;
+
+    private final int worker;
+
+    private final Node[] nodes;
+
+    // First node index of every worker, followed by the number of nodes
+    private final int[] bounds;
+
+    private ServerSocketChannel server;
+
+    private Selector selector;
+
+    // Indexed by worker number, null for this worker
+    private Peer[] peers;
+
+    // Messages for this worker's own nodes, and the indexes of their receivers, in delivery order
+    private final LongQueue localMessages = new LongQueue();
+    private final LongQueue localReceivers = new LongQueue();
+
+    // The same for the frame of another worker, while it is handed over
+    private final LongQueue incomingMessages = new LongQueue();
+    private final LongQueue incomingReceivers = new LongQueue();
+
+    private int round;
+
+    private long bytesSent;
+
+    // Every frame written, one per other worker and round even when it is empty
+    private int framesSent;
+
+    public SocketTransport(int worker, int workers, Topology topology){
+        this.worker = worker;
+        this.nodes = topology.getNodes();
+        this.bounds = bounds(workers, this.nodes.length);
+        this.peers = new Peer[workers];
+    }
+
+    // Splits the node indexes into one contiguous range per worker
+    public static int[] bounds(int workers, int nodes){
+
+        int[] bounds = new int[workers + 1];
+        for (int i=0; i<=workers; i++){
+            bounds[i] = (int) ((long) nodes * i / workers);
+        }
+
+        return bounds;
+    }
+
+    @Override
+    public int getFrom(){
+        return this.bounds[this.worker];
+    }
+
+    @Override
+    public int getTo(){
+        return this.bounds[this.worker + 1];
+    }
+
+    // Opens the port the workers with a larger number connect to
+    public int listen() throws IOException {
+
+        this.server = ServerSocketChannel.open();
+        this.server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+        return ((InetSocketAddress) this.server.getLocalAddress()).getPort();
+    }
+
+    // Connects to every other worker, given the ports they listen on
+    public void connect(int[] ports) throws IOException {
+
+        ByteBuffer id = ByteBuffer.allocate(4);
+
+        for (int j=0; j<this.worker; j++){
+
+            SocketChannel channel = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), ports[j]));
+
+            id.clear();
+            id.putInt(this.worker).flip();
+            while (id.hasRemaining()){
+                channel.write(id);
+            }
+
+            this.peers[j] = new Peer(channel);
+        }
+
+        for (int k=this.worker + 1; k<this.peers.length; k++){
+
+            SocketChannel channel = this.server.accept();
+
+            id.clear();
+            while (id.hasRemaining()){
+                if (channel.read(id) < 0){
+                    throw new EOFException("Worker closed the connection before saying who it is");
+                }
+            }
+
+            this.peers[id.getInt(0)] = new Peer(channel);
+        }
+
+        this.server.close();
+
+        this.selector = Selector.open();
+        for (Peer peer : this.peers){
+            if (peer != null){
+                peer.channel.configureBlocking(false);
+                peer.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                peer.key = peer.channel.register(this.selector, 0, peer);
+            }
+        }
+    }
+
+    public void setRound(int round){
+        this.round = round;
+    }
+
+    // Whether a remote receiver is still there is only known to its worker, so messages are never dropped here
+    @Override
+    public boolean deliver(Node receiver, LongQueue messages, int from, int count, Mailboxes mailboxes){
+
+        int index = receiver.getIndex();
+
+        if (this.isLocal(receiver)){
+            for (int i=from; i<from + count; i++){
+                this.localMessages.add(messages.get(i));
+                this.localReceivers.add(index);
+            }
+            return true;
+        }
+
+        Peer peer = this.peers[this.owner(index)];
+        for (int i=from; i<from + count; i++){
+            peer.add(index, messages.get(i));
+        }
+
+        return true;
+    }
+
+    // The frames are built by one thread
+    @Override
+    public boolean isConcurrent(){
+        return false;
+    }
+
+    // Exchanges this round's frames with every other worker, then hands this worker's nodes their messages
+    @Override
+    public void flush(Mailboxes mailboxes) throws IOException {
+
+        int unfinished = 0;
+        for (Peer peer : this.peers){
+            if (peer != null){
+                peer.prepare();
+                peer.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                unfinished++;
+            }
+        }
+
+        while (unfinished > 0){
+
+            this.selector.select();
+
+            for (SelectionKey key : this.selector.selectedKeys()){
+
+                Peer peer = (Peer) key.attachment();
+
+                if (key.isValid() && key.isWritable() && peer.write()){
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+                }
+
+                if (key.isValid() && key.isReadable() && peer.read()){
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                }
+
+                if (key.interestOps() == 0 && !peer.finished){
+                    peer.finished = true;
+                    unfinished--;
+                }
+            }
+
+            this.selector.selectedKeys().clear();
+        }
+
+        for (Peer peer : this.peers){
+            if (peer == null){
+                this.handOver(this.localMessages, this.localReceivers, mailboxes);
+            }else{
+                peer.unpack();
+                this.handOver(this.incomingMessages, this.incomingReceivers, mailboxes);
+            }
+        }
+    }
+
+    // Puts the messages into the mailboxes of their receivers, consecutive messages for the same receiver in one go
+    private void handOver(LongQueue messages, LongQueue receivers, Mailboxes mailboxes){
+
+        int i = 0;
+        while (i < messages.size()){
+
+            long receiver = receivers.get(i);
+
+            int end = i + 1;
+            while (end < messages.size() && receivers.get(end) == receiver){
+                end++;
+            }
+
+            mailboxes.put(this.nodes[(int) receiver], messages, i, end - i);
+            i = end;
+        }
+
+        messages.clear();
+        receivers.clear();
+    }
+
+    public long getBytesSent(){
+        return this.bytesSent;
+    }
+
+    public int getFramesSent(){
+        return this.framesSent;
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        for (Peer peer : this.peers){
+            if (peer != null){
+                peer.channel.close();
+            }
+        }
+
+        if (this.selector != null){
+            this.selector.close();
+        }
+    }
+
+    private int owner(int index){
+
+        int worker = 0;
+        while (index >= this.bounds[worker + 1]){
+            worker++;
+        }
+
+        return worker;
+    }
+
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, int needed){
+
+        if (buffer.capacity() >= needed){
+            return buffer;
+        }
+
+        ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(needed, buffer.capacity() * 2));
+        buffer.flip();
+        larger.put(buffer);
+
+        return larger;
+    }
+
+    // The connection to one other worker, with the frame being written to it and the one being read from it
+    private class Peer {
+
+        private final SocketChannel channel;
+
+        private SelectionKey key;
+
+        private final ByteBuffer header = ByteBuffer.allocateDirect(HEADER);
+
+        private ByteBuffer body = ByteBuffer.allocateDirect(1 << 12);
+
+        private final ByteBuffer[] frame = new ByteBuffer[2];
+
+        private int count;
+
+        private final ByteBuffer length = ByteBuffer.allocateDirect(4);
+
+        private ByteBuffer incoming = ByteBuffer.allocateDirect(1 << 12);
+
+        private boolean lengthRead;
+
+        private boolean finished;
+
+        private Peer(SocketChannel channel){
+            this.channel = channel;
+        }
+
+        private void add(int receiver, long message){
+
+            this.body = ensureCapacity(this.body, this.body.position() + ENTRY);
+            this.body.putInt(receiver);
+            this.body.putLong(message);
+            this.count++;
+        }
+
+        private void prepare(){
+
+            this.body.flip();
+
+            this.header.clear();
+            this.header.putInt(HEADER - 4 + this.body.remaining());
+            this.header.putInt(round);
+            this.header.putInt(this.count);
+            this.header.flip();
+
+            this.frame[0] = this.header;
+            this.frame[1] = this.body;
+
+            this.length.clear();
+            this.lengthRead = false;
+            this.finished = false;
+
+            // Empty frames too: they are what keeps the workers in step
+            framesSent++;
+        }
+
+        // Returns true once the whole frame has been written
+        private boolean write() throws IOException {
+
+            bytesSent += this.channel.write(this.frame);
+
+            return !this.header.hasRemaining() && !this.body.hasRemaining();
+        }
+
+        // Returns true once the whole frame of this round has been read
+        private boolean read() throws IOException {
+
+            if (!this.lengthRead){
+
+                if (this.channel.read(this.length) < 0){
+                    throw new EOFException("Worker closed the connection");
+                }
+                if (this.length.hasRemaining()){
+                    return false;
+                }
+
+                int size = this.length.getInt(0);
+                if (this.incoming.capacity() < size){
+                    this.incoming = ByteBuffer.allocateDirect(Math.max(size, this.incoming.capacity() * 2));
+                }
+
+                this.incoming.clear();
+                this.incoming.limit(size);
+                this.lengthRead = true;
+            }
+
+            if (this.channel.read(this.incoming) < 0){
+                throw new EOFException("Worker closed the connection");
+            }
+
+            return !this.incoming.hasRemaining();
+        }
+
+        private void unpack() throws IOException {
+
+            this.incoming.flip();
+
+            int frameRound = this.incoming.getInt();
+            if (frameRound != round){
+                throw new IOException(String.format("Got a frame for round %d in round %d", frameRound, round));
+            }
+
+            int messages = this.incoming.getInt();
+            for (int i=0; i<messages; i++){
+                incomingReceivers.add(this.incoming.getInt());
+                incomingMessages.add(this.incoming.getLong());
+            }
+
+            this.body.clear();
+            this.count = 0;
+        }
+    }
+}
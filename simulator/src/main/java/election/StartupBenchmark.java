@@ -0,0 +1,80 @@
+package election;
+
+import java.io.*;
+import java.nio.file.*;
+
+/*
+How long a huge topology takes to get through its first round, and how much memory the process needs for it, with
+one execution mode. Parses the input (a sorted ring with one election, generated if no file is given), starts the
+nodes and runs the first round, then prints the time of each step and the peak resident set size of the process.
+
+Peak RSS covers the whole process, so every mode should run in a JVM of its own:
+
+    java StartupBenchmark lazy [size | input file]       (default: 1000000 nodes)
+    java StartupBenchmark platform [size | input file]
+*/
+public class StartupBenchmark {
+
+    public static void main(String args[]) throws IOException {
+
+        ExecutionMode mode = ExecutionMode.valueOf(args.length > 0 ? args[0].toUpperCase() : "LAZY");
+        String size = args.length > 1 ? args[1] : "1000000";
+
+        File input = new File(size);
+        if (!input.exists()){
+            input = File.createTempFile("ring-" + size + "-", ".txt");
+            input.deleteOnExit();
+
+            WorkloadGenerator generator = new WorkloadGenerator();
+            generator.setNodes(Integer.parseInt(size));
+            generator.setOrder("sorted");
+            generator.write(input.getPath());
+        }
+
+        NetworkSettings settings = new NetworkSettings();
+        settings.setExecutionMode(mode);
+        settings.setLogLevel(Logger.Level.INFO);
+        settings.setConsoleEcho(false);
+
+        long startTime = System.nanoTime();
+        Topology topology = MappedTopologyParser.parse(input.getPath());
+        double parseSeconds = (System.nanoTime() - startTime) / 1e9;
+
+        Network network = new Network(topology, settings);
+
+        startTime = System.nanoTime();
+        try {
+            network.startNodes();
+        } catch (OutOfMemoryError ex) {
+            System.out.println(String.format("RESULT nodes=%d threads=%s failed to start: %s (peak RSS %d MB)",
+                    topology.getNodes().length, mode, ex, peakRss() / 1024));
+            return;
+        }
+        double startSeconds = (System.nanoTime() - startTime) / 1e9;
+
+        network.runRound();
+        double firstRoundSeconds = (System.nanoTime() - startTime) / 1e9;
+
+        System.out.println(String.format("RESULT nodes=%d threads=%s parse=%.3fs start=%.3fs first-round=%.3fs peak-rss=%dMB",
+                topology.getNodes().length, mode, parseSeconds, startSeconds, firstRoundSeconds, peakRss() / 1024));
+
+        network.stopNetwork();
+    }
+
+    // VmHWM of the process in kB, -1 where /proc is not available
+    private static long peakRss() throws IOException {
+
+        Path status = Paths.get("/proc/self/status");
+        if (!Files.exists(status)){
+            return -1;
+        }
+
+        for (String line : Files.readAllLines(status)){
+            if (line.startsWith("VmHWM:")){
+                return Long.parseLong(line.replaceAll("[^0-9]", ""));
+            }
+        }
+
+        return -1;
+    }
+}
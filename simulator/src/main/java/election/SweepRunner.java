@@ -0,0 +1,187 @@
+package election;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/*
+Runs every combination of the given parameters as a separate simulation, many at a time on a bounded pool, in one
+JVM. Each configuration builds its own topology with the WorkloadGenerator and gets a logger of its own, which only
+counts the LEADER lines, so the runs share nothing. The results are written as one table, in configuration order,
+with whether the expected leader (the largest id that did not fail) was elected.
+
+Every option takes a comma-separated list:
+
+    --sizes=100,1000  --orders=sorted,reverse,random  --graphs=ring  --algorithms=chang-roberts,franklin,...
+    --initiators=1,16  --kill-leader=false,true  --failures=0  --seeds=1,2,3
+
+and the runner itself:
+
+    --engine=des|network   discrete-event simulator (default) or threaded network
+    --parallel=N           simulations running at the same time (default: available processors)
+    --out=file             where to write the table as CSV (default: sweep.csv)
+
+Usage: java SweepRunner [options]
+*/
+public class SweepRunner {
+
+    // Options that make up a configuration, in the order of its columns
+    private static final String[] AXES = {"--sizes", "--orders", "--graphs", "--algorithms", "--initiators", "--kill-leader", "--failures", "--seeds"};
+
+    private static final String HEADER = "size,order,graph,algorithm,initiators,kill_leader,failures,seed,rounds,messages,leaders,leader,expected,millis";
+
+    public static void main(String args[]) throws IOException, InterruptedException {
+
+        HashMap<String, String[]> options = new HashMap<>();
+        options.put("--sizes", new String[] {"100", "1000"});
+        options.put("--orders", new String[] {"sorted", "reverse", "random"});
+        options.put("--graphs", new String[] {"ring"});
+        options.put("--algorithms", new String[] {"chang-roberts", "hirschberg-sinclair", "franklin", "echo-extinction"});
+        options.put("--initiators", new String[] {"1", "16"});
+        options.put("--kill-leader", new String[] {"false", "true"});
+        options.put("--failures", new String[] {"0"});
+        options.put("--seeds", new String[] {"1", "2", "3"});
+        options.put("--engine", new String[] {"des"});
+        options.put("--parallel", new String[] {String.valueOf(Runtime.getRuntime().availableProcessors())});
+        options.put("--out", new String[] {"sweep.csv"});
+
+        for (String arg : args){
+
+            String[] parts = arg.split("=", 2);
+            if (parts.length != 2 || !options.containsKey(parts[0])){
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+
+            options.put(parts[0], parts[1].split(","));
+        }
+
+        boolean network = options.get("--engine")[0].equals("network");
+
+        // Every combination, the last axis changing fastest
+        int total = 1;
+        for (String axis : AXES){
+            total *= options.get(axis).length;
+        }
+
+        ArrayList<String[]> configurations = new ArrayList<>();
+        for (int c=0; c<total; c++){
+
+            String[] configuration = new String[AXES.length];
+            int rest = c;
+            for (int a=AXES.length - 1; a>=0; a--){
+                String[] values = options.get(AXES[a]);
+                configuration[a] = values[rest % values.length];
+                rest /= values.length;
+            }
+
+            configurations.add(configuration);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Integer.parseInt(options.get("--parallel")[0]));
+
+        long startTime = System.nanoTime();
+
+        ArrayList<Future<String>> results = new ArrayList<>();
+        for (String[] configuration : configurations){
+            results.add(pool.submit(() -> run(configuration, network)));
+        }
+
+        int failed = 0;
+        String out = options.get("--out")[0];
+
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(out)))) {
+
+            writer.println(HEADER);
+
+            for (int i=0; i<results.size(); i++){
+
+                String row;
+                try {
+                    row = results.get(i).get();
+                } catch (ExecutionException e) {
+                    row = String.join(",", configurations.get(i)) + ",error: " + e.getCause();
+                }
+
+                // Columns 11 and 12 are the leader and the expected leader
+                String[] columns = row.split(",");
+                if (columns.length != HEADER.split(",").length || !columns[11].equals(columns[12])){
+                    failed++;
+                }
+
+                writer.println(row);
+            }
+        }
+
+        pool.shutdown();
+
+        System.out.println(String.format("%d simulations in %.3f s, %d without the expected leader, results in %s",
+                configurations.size(), (System.nanoTime() - startTime) / 1e9, failed, out));
+    }
+
+    // Builds and runs one configuration. Returns its row of the table.
+    private static String run(String[] configuration, boolean network){
+
+        WorkloadGenerator generator = new WorkloadGenerator();
+        generator.setNodes(Integer.parseInt(configuration[0]));
+        generator.setOrder(configuration[1]);
+        generator.setGraph(configuration[2]);
+        generator.setInitiators(Integer.parseInt(configuration[4]));
+        generator.setKillLeader(Boolean.parseBoolean(configuration[5]));
+        generator.setFailures(Integer.parseInt(configuration[6]));
+        generator.setSeed(Long.parseLong(configuration[7]));
+
+        Topology topology = generator.build();
+
+        NetworkSettings settings = new NetworkSettings();
+        settings.setAlgorithm(Algorithm.valueOf(configuration[3].toUpperCase().replace('-', '_')));
+        settings.setLogLevel(Logger.Level.INFO);
+        settings.setConsoleEcho(false);
+
+        LeaderCounter leaders = new LeaderCounter();
+        Logger logger = new Logger(leaders, Writer.nullWriter());
+
+        long startTime = System.nanoTime();
+
+        Simulation simulation = network ? new Network(topology, settings, logger) : new DiscreteEventSimulator(topology, settings, logger);
+        simulation.run();
+
+        long millis = (System.nanoTime() - startTime) / 1000000;
+
+        int expected = -1;
+        for (Node node : topology.getNodes()){
+            if (!topology.isFailed(node.getIndex())){
+                expected = Math.max(expected, node.getNodeId());
+            }
+        }
+
+        Node leader = simulation.getLeader();
+
+        return String.format("%s,%d,%d,%d,%d,%d,%d", String.join(",", configuration), simulation.getRound(),
+                simulation.getMessagesDelivered(), leaders.count, leader == null ? -1 : leader.getNodeId(), expected, millis);
+    }
+
+    // Results sink of one simulation: counts the LEADER lines instead of keeping them
+    private static class LeaderCounter extends Writer {
+
+        private int count;
+
+        @Override
+        public void write(char[] buffer, int offset, int length){
+        }
+
+        @Override
+        public void write(String line){
+            if (line.startsWith(MessageCreator.LEADER_TAG)){
+                this.count++;
+            }
+        }
+
+        @Override
+        public void flush(){
+        }
+
+        @Override
+        public void close(){
+        }
+    }
+}
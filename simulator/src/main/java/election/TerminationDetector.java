@@ -0,0 +1,53 @@
+package election;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+Counts the messages the network still has to deal with: queued in an outgoing queue, waiting in a mailbox or being
+handled. Nodes count what they queue and what they have handled, the network what it drops or injects; a message
+that moves from a queue to a mailbox stays counted. The network is quiescent exactly when the count is zero, which
+costs one read per round instead of a scan of every node.
+
+A node counts a handled message only after handling it, so the messages it sent in response are already counted and
+the count cannot touch zero in between. In logical mode the RoundBarrier's own count is always zero when this one is
+read, so what is left is the number of queued messages.
+
+Heartbeats are not counted at all: they never stop, and a network that only exchanges heartbeats is quiescent.
+*/
+public class TerminationDetector {
+
+    private final AtomicLong pending;
+
+    public TerminationDetector(){
+        this.pending = new AtomicLong();
+    }
+
+    public void add(long messages){
+        this.pending.addAndGet(messages);
+    }
+
+    public void remove(long messages){
+        this.pending.addAndGet(-messages);
+    }
+
+    public boolean isQuiescent(){
+        return this.pending.get() == 0;
+    }
+
+    public long getPending(){
+        return this.pending.get();
+    }
+
+    // The number of messages among count, starting at position from, that are counted, i.e. that are not heartbeats
+    public static int counted(LongQueue messages, int from, int count){
+
+        int counted = 0;
+        for (int i=from; i<from + count; i++){
+            if (MessageCreator.getMessageType(messages.get(i)) != MessageCreator.HEARTBEAT){
+                counted++;
+            }
+        }
+
+        return counted;
+    }
+}
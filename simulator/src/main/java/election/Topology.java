@@ -0,0 +1,453 @@
+package election;
+
+import java.io.IOException;
+import java.util.*;
+
+/*
+Result of parsing an input file: the nodes with their ring links and neighbours, and what should happen to them.
+
+Node ids are remapped to dense indices 0..size-1 in the order they first appear. Everything that describes the graph
+is kept in int arrays indexed by them:
+- next/previous hold the ring links (the ring follows the order of the adjacency lines)
+- neighbours are stored in compressed-sparse-row form: the neighbours of node i are
+  neighbourIndices[neighbourStart[i]] .. neighbourIndices[neighbourStart[i+1] - 1]
+While parsing, the edges are collected in a plain edge list, and compact() turns them into the CSR arrays.
+
+For the hierarchical election, segment() cuts the ring into segments of consecutive nodes. Each segment is closed
+into a ring of its own by a link from its last node to its first one, its head, and the heads are linked into an
+overlay ring. These links exist in addition to the ring and the neighbours, and follow failures like the ring does.
+*/
+public class Topology {
+
+    private IntIndexMap indexOfId;
+
+    private int size;
+
+    private int[] ids;
+
+    private Node[] nodes;
+
+    private int[] next;
+
+    private int[] previous;
+
+    private int[] neighbourStart;
+
+    private int[] neighbourIndices;
+
+    private boolean[] failed;
+
+    // Edges read so far, turned into the CSR arrays by compact()
+    private int[] edgeFrom;
+    private int[] edgeTo;
+    private int edgeCount;
+
+    // Stores elections for each round. Note that multiple actions is allowed for one round.
+    private HashMap<Integer, ArrayList<Action>> roundActions;
+
+    // FAIL lines, applied one at a time whenever the network is quiet
+    private ArrayDeque<Node> failures;
+
+    // Only set once the ring has been cut into segments: the segment of every node, and the first node of every
+    // segment that has not failed, -1 once all of its nodes have
+    private int[] segmentOf;
+    private int[] segmentHeads;
+
+    // Flags of a node in a checkpoint
+    private static final int FAILED = 1;
+    private static final int LEADER = 2;
+
+    // Mailboxes of all nodes, one slot range per node index
+    private final MailboxArena mailboxes = new MailboxArena();
+
+    public Topology(){
+        this.indexOfId = new IntIndexMap();
+        this.ids = new int[16];
+        this.nodes = new Node[16];
+        this.next = new int[16];
+        this.previous = new int[16];
+        this.edgeFrom = new int[16];
+        this.edgeTo = new int[16];
+        this.neighbourStart = new int[1];
+        this.neighbourIndices = new int[0];
+        this.failed = new boolean[0];
+        this.roundActions = new HashMap<>();
+        this.failures = new ArrayDeque<>();
+    }
+
+    // Creates the node if it doesn't exist yet, and returns it. Ids have to fit in a packed message, see MessageCreator.
+    public Node addOrGetNodeWithId(int id){
+
+        if (id < 0 || id > MessageCreator.MAX_ID){
+            throw new IllegalArgumentException(String.format("Node id %d is out of range: ids must be between 0 and %d", id, MessageCreator.MAX_ID));
+        }
+
+        int index = this.indexOfId.get(id);
+        if (index >= 0){
+            return this.nodes[index];
+        }
+
+        if (this.size == this.ids.length){
+            int capacity = this.size * 2;
+            this.ids = Arrays.copyOf(this.ids, capacity);
+            this.nodes = Arrays.copyOf(this.nodes, capacity);
+            this.next = Arrays.copyOf(this.next, capacity);
+            this.previous = Arrays.copyOf(this.previous, capacity);
+        }
+
+        index = this.size++;
+        this.indexOfId.put(id, index);
+        this.ids[index] = id;
+        this.next[index] = -1;
+        this.previous[index] = -1;
+        this.nodes[index] = new Node(id, index, this);
+
+        return this.nodes[index];
+    }
+
+    public void addNeighbour(Node node, Node neighbour){
+
+        if (this.edgeCount == this.edgeFrom.length){
+            this.edgeFrom = Arrays.copyOf(this.edgeFrom, this.edgeCount * 2);
+            this.edgeTo = Arrays.copyOf(this.edgeTo, this.edgeCount * 2);
+        }
+
+        this.edgeFrom[this.edgeCount] = node.getIndex();
+        this.edgeTo[this.edgeCount] = neighbour.getIndex();
+        this.edgeCount++;
+    }
+
+    // Builds the CSR neighbour arrays from the edges read so far, and trims the node arrays to their final size
+    public void compact(){
+
+        this.ids = Arrays.copyOf(this.ids, this.size);
+        this.nodes = Arrays.copyOf(this.nodes, this.size);
+        this.next = Arrays.copyOf(this.next, this.size);
+        this.previous = Arrays.copyOf(this.previous, this.size);
+        this.failed = Arrays.copyOf(this.failed, this.size);
+
+        // Counting sort of the edges by their source
+        this.neighbourStart = new int[this.size + 1];
+        for (int e=0; e<this.edgeCount; e++){
+            this.neighbourStart[this.edgeFrom[e] + 1]++;
+        }
+        for (int i=0; i<this.size; i++){
+            this.neighbourStart[i + 1] += this.neighbourStart[i];
+        }
+
+        this.neighbourIndices = new int[this.edgeCount];
+        int[] position = Arrays.copyOf(this.neighbourStart, this.size);
+        for (int e=0; e<this.edgeCount; e++){
+            this.neighbourIndices[position[this.edgeFrom[e]]++] = this.edgeTo[e];
+        }
+
+        this.edgeFrom = new int[0];
+        this.edgeTo = new int[0];
+        this.edgeCount = 0;
+    }
+
+    public int size(){
+        return this.size;
+    }
+
+    public Node getNode(int index){
+        return index < 0 ? null : this.nodes[index];
+    }
+
+    public Node getNodeWithId(int id){
+        return this.getNode(this.indexOfId.get(id));
+    }
+
+    public Node[] getNodes(){
+        return this.nodes;
+    }
+
+    public int getNext(int index){
+        return this.next[index];
+    }
+
+    public void setNext(int index, int nextIndex){
+        this.next[index] = nextIndex;
+    }
+
+    public int getPrevious(int index){
+        return this.previous[index];
+    }
+
+    public void setPrevious(int index, int previousIndex){
+        this.previous[index] = previousIndex;
+    }
+
+    public boolean isNeighbour(int index, int otherIndex){
+
+        for (int k=this.neighbourStart[index]; k<this.neighbourStart[index + 1]; k++){
+            if (this.neighbourIndices[k] == otherIndex){
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // Neighbours of a node that have not failed, including the ring links created when failed nodes were bypassed
+    public List<Node> getNeighbours(int index){
+
+        List<Node> neighbours = new ArrayList<>();
+        for (int k=this.neighbourStart[index]; k<this.neighbourStart[index + 1]; k++){
+            if (!this.failed[this.neighbourIndices[k]]){
+                neighbours.add(this.nodes[this.neighbourIndices[k]]);
+            }
+        }
+
+        this.addRingLink(neighbours, index, this.next[index]);
+        if (this.previous[index] != this.next[index]){
+            this.addRingLink(neighbours, index, this.previous[index]);
+        }
+
+        return neighbours;
+    }
+
+    private void addRingLink(List<Node> neighbours, int index, int link){
+        if (link >= 0 && link != index && !this.failed[link] && !this.isNeighbour(index, link)){
+            neighbours.add(this.nodes[link]);
+        }
+    }
+
+    // Marks the node as failed and closes the ring over it, in constant time. The failed node keeps its own links,
+    // so that its former ring neighbours can still be found. Failing nodes one after the other, in any order,
+    // also closes the ring over several adjacent failures.
+    public void markFailed(int index){
+
+        this.failed[index] = true;
+
+        int nextIndex = this.next[index];
+        int previousIndex = this.previous[index];
+
+        if (nextIndex >= 0 && previousIndex >= 0){
+            this.next[previousIndex] = nextIndex;
+            this.previous[nextIndex] = previousIndex;
+        }
+
+        // A failed head hands its segment over to the next node, if there is one left
+        if (this.segmentOf != null && this.segmentOf[index] >= 0 && this.segmentHeads[this.segmentOf[index]] == index){
+
+            boolean alone = nextIndex < 0 || nextIndex == index || this.segmentOf[nextIndex] != this.segmentOf[index];
+            this.segmentHeads[this.segmentOf[index]] = alone ? -1 : nextIndex;
+        }
+    }
+
+    // Cuts the ring into the given number of segments of consecutive nodes, following the ring from the first node.
+    // Nodes that are not on the ring get no segment.
+    public void segment(int segments){
+
+        int ringSize = 0;
+        for (int i=0; i<this.size; i++){
+            if (this.next[i] >= 0 && !this.failed[i]){
+                ringSize++;
+            }
+        }
+
+        segments = Math.max(1, Math.min(segments, ringSize));
+
+        this.segmentOf = new int[this.size];
+        Arrays.fill(this.segmentOf, -1);
+        this.segmentHeads = new int[segments];
+
+        int first = 0;
+        while (first < this.size && (this.next[first] < 0 || this.failed[first])){
+            first++;
+        }
+
+        int index = first;
+        for (int position=0; position<ringSize; position++){
+
+            int segment = (int) ((long) position * segments / ringSize);
+            if (this.segmentOf[this.previous[index]] != segment){
+                this.segmentHeads[segment] = index;
+            }
+
+            this.segmentOf[index] = segment;
+            index = this.next[index];
+        }
+    }
+
+    public boolean isSegmented(){
+        return this.segmentOf != null;
+    }
+
+    public boolean isSegmentHead(int index){
+        return this.segmentOf[index] >= 0 && this.segmentHeads[this.segmentOf[index]] == index;
+    }
+
+    // The next node of the segment: the next node on the ring, or the head for the last node of the segment
+    public int getSegmentNext(int index){
+
+        int nextIndex = this.next[index];
+        if (this.segmentOf[nextIndex] != this.segmentOf[index]){
+            return this.segmentHeads[this.segmentOf[index]];
+        }
+
+        return nextIndex;
+    }
+
+    // The head of the next segment that still has one. A head that is alone on the overlay gets itself back.
+    public int getOverlayNext(int index){
+
+        int segment = this.segmentOf[index];
+        for (int d=1; d<=this.segmentHeads.length; d++){
+
+            int head = this.segmentHeads[(segment + d) % this.segmentHeads.length];
+            if (head >= 0){
+                return head;
+            }
+        }
+
+        return index;
+    }
+
+    // Whether target can be reached over a segment or overlay link of the node
+    public boolean isShortcut(int index, int target){
+
+        if (this.segmentOf == null || this.segmentOf[index] < 0){
+            return false;
+        }
+
+        return target == this.getSegmentNext(index) || (this.isSegmentHead(index) && target == this.getOverlayNext(index));
+    }
+
+    public boolean isFailed(int index){
+        return this.failed[index];
+    }
+
+    // Writes the nodes, their links, flags and segments, and what is still scheduled, to a checkpoint. Segments are
+    // written as they are, since messages in flight follow them.
+    public void writeTo(Checkpoint out) throws IOException {
+
+        out.putInt(this.size);
+        out.putInts(this.ids, this.size);
+        out.putInts(this.next, this.size);
+        out.putInts(this.previous, this.size);
+
+        int[] flags = new int[this.size];
+        for (int i=0; i<this.size; i++){
+            flags[i] = (this.failed[i] ? FAILED : 0) | (this.nodes[i].isNodeLeader() ? LEADER : 0);
+        }
+        out.putInts(flags, this.size);
+
+        out.putInts(this.neighbourStart, this.size + 1);
+        out.putInts(this.neighbourIndices, this.neighbourStart[this.size]);
+
+        // Number of segments, 0 if the ring is not segmented
+        out.putInt(this.segmentOf == null ? 0 : this.segmentHeads.length);
+        if (this.segmentOf != null){
+            out.putInts(this.segmentOf, this.size);
+            out.putInts(this.segmentHeads, this.segmentHeads.length);
+        }
+
+        // Every action as: round, FAIL or not, number of nodes, node indexes
+        int actions = 0;
+        for (ArrayList<Action> list : this.roundActions.values()){
+            actions += list.size();
+        }
+        out.putInt(actions);
+
+        for (Map.Entry<Integer, ArrayList<Action>> entry : this.roundActions.entrySet()){
+            for (Action action : entry.getValue()){
+                out.putInt(entry.getKey());
+                out.putInt(action.getType().equals(MessageCreator.FAIL_TAG) ? 1 : 0);
+                out.putInt(action.getNodes().size());
+                for (Node node : action.getNodes()){
+                    out.putInt(node.getIndex());
+                }
+            }
+        }
+
+        out.putInt(this.failures.size());
+        for (Node node : this.failures){
+            out.putInt(node.getIndex());
+        }
+    }
+
+    // Rebuilds a topology from a checkpoint, with the same node indexes. Failed nodes are inactive from the start.
+    public static Topology readFrom(Checkpoint in) throws IOException {
+
+        Topology topology = new Topology();
+
+        int size = in.getInt();
+        topology.size = size;
+        topology.ids = in.getInts(size);
+        topology.next = in.getInts(size);
+        topology.previous = in.getInts(size);
+        topology.indexOfId = new IntIndexMap(size);
+        topology.nodes = new Node[size];
+        topology.failed = new boolean[size];
+
+        int[] flags = in.getInts(size);
+        for (int i=0; i<size; i++){
+            topology.indexOfId.put(topology.ids[i], i);
+            topology.nodes[i] = new Node(topology.ids[i], i, topology);
+            topology.nodes[i].setNodeLeader((flags[i] & LEADER) != 0);
+
+            if ((flags[i] & FAILED) != 0){
+                topology.failed[i] = true;
+                topology.nodes[i].setActive(false);
+            }
+        }
+
+        topology.neighbourStart = in.getInts(size + 1);
+        topology.neighbourIndices = in.getInts(topology.neighbourStart[size]);
+
+        int segments = in.getInt();
+        if (segments > 0){
+            topology.segmentOf = in.getInts(size);
+            topology.segmentHeads = in.getInts(segments);
+        }
+
+        int actions = in.getInt();
+        for (int a=0; a<actions; a++){
+
+            int round = in.getInt();
+            Action action = new Action(in.getInt() == 1 ? MessageCreator.FAIL_TAG : MessageCreator.ELECTION_TAG);
+
+            int count = in.getInt();
+            for (int k=0; k<count; k++){
+                action.addNode(topology.nodes[in.getInt()]);
+            }
+            topology.addAction(round, action);
+        }
+
+        int failures = in.getInt();
+        for (int k=0; k<failures; k++){
+            topology.failures.add(topology.nodes[in.getInt()]);
+        }
+
+        return topology;
+    }
+
+    public void addAction(int round, Action action){
+
+        if (this.roundActions.containsKey(round)){
+            this.roundActions.get(round).add(action);
+        }else{
+            ArrayList<Action> actions = new ArrayList<>();
+            actions.add(action);
+            this.roundActions.put(round, actions);
+        }
+    }
+
+    public void addFailure(Node node){
+        this.failures.add(node);
+    }
+
+    public HashMap<Integer, ArrayList<Action>> getRoundActions() {
+        return roundActions;
+    }
+
+    public MailboxArena getMailboxes() {
+        return this.mailboxes;
+    }
+
+    public ArrayDeque<Node> getFailures() {
+        return failures;
+    }
+}
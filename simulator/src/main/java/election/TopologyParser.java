@@ -0,0 +1,112 @@
+package election;
+
+import java.io.*;
+
+// Reads the input file: the adjacency lines build the nodes and the ring (in the order of the lines),
+// the ELECT and CRASH lines build the action schedule and the FAIL lines the list of failures.
+public class TopologyParser {
+
+    public static Topology parse(String fileName) throws IOException {
+
+        Topology topology = new Topology();
+
+        try (BufferedReader br = new BufferedReader(new FileReader(fileName))) {
+
+            String line;
+            Integer round;
+            Node node;
+            int nodeId;
+            Action action;
+            Node lastNode = null;
+            Node firstNode = null;
+
+            while ((line = br.readLine()) != null) {
+
+                // Decide how we should process the line
+                String[] parts = line.split("\\s");
+
+                switch(parts[0]){
+
+                    case "Node_id":
+                        break;
+
+                    case "ELECT":
+                    case "CRASH":
+
+                        // CRASH makes the nodes fail in the given round, instead of waiting for the network to be quiet
+                        action = new Action(parts[0].equals("ELECT") ? "ELECT" : "FAIL");
+
+                        // Create and/or add each node that are participating in the election
+                        for (int i=2; i<parts.length; i++){
+
+                            nodeId = parseId(parts[i]);
+                            node = topology.addOrGetNodeWithId(nodeId);
+
+                            action.addNode(node);
+                        }
+
+                        // Add the action to the list of messages for the specific round
+                        round = Integer.valueOf(parts[1]);
+                        topology.addAction(round, action);
+
+                        break;
+
+                    case "FAIL":
+
+                        nodeId = parseId(parts[1]);
+                        node = topology.addOrGetNodeWithId(nodeId);
+
+                        topology.addFailure(node);
+
+                        break;
+
+                    default:
+
+                        int mainNodeId = parseId(parts[0]);
+                        Node mainNode = topology.addOrGetNodeWithId(mainNodeId);
+
+                        // For each neighbour, create if doesn't exist yet, then add as neighbour of main node
+                        for (int i=1; i<parts.length; i++){
+
+                            nodeId = parseId(parts[i]);
+                            node = topology.addOrGetNodeWithId(nodeId);
+                            topology.addNeighbour(mainNode, node);
+                        }
+
+                        if (firstNode == null){
+                            firstNode = mainNode;
+                        }
+
+                        if (lastNode != null){
+                            lastNode.setNextNode(mainNode);
+                            mainNode.setPreviousNode(lastNode);
+                        }
+
+                        lastNode = mainNode;
+
+                        break;
+                }
+            }
+
+            if (lastNode != null){
+                lastNode.setNextNode(firstNode);
+                firstNode.setPreviousNode(lastNode);
+            }
+        }
+
+        topology.compact();
+
+        return topology;
+    }
+
+    // A node id, which has to fit in a packed message
+    private static int parseId(String text) throws IOException {
+
+        int id = Integer.parseInt(text);
+        if (id < 0 || id > MessageCreator.MAX_ID){
+            throw new IOException(String.format("Node id %d is out of range: ids must be between 0 and %d", id, MessageCreator.MAX_ID));
+        }
+
+        return id;
+    }
+}
@@ -0,0 +1,110 @@
+package election;
+
+import java.io.*;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/*
+Records everything the network or the discrete-event simulator does in a binary trace, enabled with --trace=<file>.
+The file starts with an 8-byte header, the magic number and the record size, followed by fixed-width records:
+
+    int  round
+    int  kind        DELIVERY, START (an ELECT action started an election) or CRASH (a node failed)
+    int  sender      id of the sending node, -1 for START and CRASH
+    int  receiver    id of the receiving node, the starting node or the failed node
+    long message     packed message, 0 for START and CRASH
+
+The file is memory-mapped in windows and only ever appended to, so recording a message is a few stores. When the
+trace is closed the file is cut to the records actually written. Not thread-safe: the network delivers on one thread
+while it records. TraceReplay reads the file back.
+*/
+public class TraceRecorder implements Closeable {
+
+    public static final int MAGIC = 0x454c5452;
+
+    public static final int HEADER = 8;
+
+    public static final int RECORD = 24;
+
+    public static final int DELIVERY = 0;
+
+    public static final int START = 1;
+
+    public static final int CRASH = 2;
+
+    // Records per mapped window
+    private static final int WINDOW_RECORDS = 1 << 20;
+
+    private final FileChannel channel;
+
+    private MappedByteBuffer window;
+
+    // File offset of the current window
+    private long windowStart;
+
+    private long records;
+
+    public TraceRecorder(String fileName) throws IOException {
+
+        this.channel = FileChannel.open(Paths.get(fileName),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        this.map(0);
+        this.window.putInt(MAGIC);
+        this.window.putInt(RECORD);
+    }
+
+    public void delivery(int round, Node sender, Node receiver, long message){
+        this.record(round, DELIVERY, sender.getNodeId(), receiver.getNodeId(), message);
+    }
+
+    public void start(int round, Node node){
+        this.record(round, START, -1, node.getNodeId(), 0);
+    }
+
+    public void crash(int round, Node node){
+        this.record(round, CRASH, -1, node.getNodeId(), 0);
+    }
+
+    public long getRecords(){
+        return this.records;
+    }
+
+    private void record(int round, int kind, int sender, int receiver, long message){
+
+        if (this.window.remaining() < RECORD){
+            this.map(this.windowStart + this.window.position());
+        }
+
+        this.window.putInt(round);
+        this.window.putInt(kind);
+        this.window.putInt(sender);
+        this.window.putInt(receiver);
+        this.window.putLong(message);
+
+        this.records++;
+    }
+
+    private void map(long start){
+
+        try {
+            this.windowStart = start;
+            this.window = this.channel.map(FileChannel.MapMode.READ_WRITE, start, (long) WINDOW_RECORDS * RECORD + HEADER);
+            this.window.order(ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to extend the trace", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        this.window.force();
+        this.window = null;
+
+        this.channel.truncate(HEADER + this.records * RECORD);
+        this.channel.close();
+    }
+}
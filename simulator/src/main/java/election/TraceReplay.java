@@ -0,0 +1,336 @@
+package election;
+
+import java.io.*;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+/*
+Reads a trace written with --trace and rebuilds what happened, without running the simulation again:
+
+- the election timeline: for every election the round it started, the round its leader was announced, the leader and
+  the number of messages it took. Elections go by their initiator or candidate id; a node that starts an election
+  again, or whose ELECT messages come back in a newer epoch, gets a new row, and ELECT messages of an older epoch
+  are left out
+- with --rounds=true, the state after every round: messages delivered by type, elections started, nodes failed so
+  far and elections still open
+- with --node=<id>, every record the node sent or received, and with --election=<id>, every record of that election
+
+The file is memory-mapped and scanned record by record, so it is read at millions of records per second. Printing
+the filtered records is what takes time, so they are written through one buffered writer.
+
+Usage: java TraceReplay <trace file> [--node=id] [--election=id] [--rounds=true]
+*/
+public class TraceReplay {
+
+    private static final int WINDOW_RECORDS = 1 << 22;
+
+    // Message type names, indexed by type
+    private static final String[] TYPES = {"UNKNOWN", "ELECT", "LEADER", "FAIL", "PROBE", "REPLY", "CANDIDATE", "WAVE", "LOCAL", "OVERLAY", "WAKE", "ANNOUNCE", "HEARTBEAT"};
+
+    private int node = -1;
+
+    private int election = -1;
+
+    private boolean rounds = false;
+
+    private final ArrayList<Election> elections = new ArrayList<>();
+
+    // The last election of every initiator or candidate id
+    private final HashMap<Integer, Election> openElections = new HashMap<>();
+
+    // Per round, at index round - 1: deliveries per message type, starts and crashes
+    private int[][] delivered = new int[64][TYPES.length];
+    private int[] started = new int[64];
+    private int[] crashed = new int[64];
+    private int lastRound;
+
+    private long records;
+
+    private PrintWriter out;
+
+    public void replay(String fileName) throws IOException {
+
+        this.out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16));
+
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, TraceRecorder.HEADER);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != TraceRecorder.MAGIC || header.getInt() != TraceRecorder.RECORD){
+                throw new IOException(fileName + " is not a trace");
+            }
+
+            long total = (channel.size() - TraceRecorder.HEADER) / TraceRecorder.RECORD;
+
+            for (long first=0; first<total; first+=WINDOW_RECORDS){
+
+                long count = Math.min(WINDOW_RECORDS, total - first);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY,
+                        TraceRecorder.HEADER + first * TraceRecorder.RECORD, count * TraceRecorder.RECORD);
+                window.order(ByteOrder.LITTLE_ENDIAN);
+
+                for (long r=0; r<count; r++){
+                    this.handle(window.getInt(), window.getInt(), window.getInt(), window.getInt(), window.getLong());
+                }
+            }
+        }
+
+        if (this.rounds){
+            this.printRounds();
+        }
+
+        this.printTimeline();
+        this.out.flush();
+    }
+
+    private void handle(int round, int kind, int sender, int receiver, long message){
+
+        this.records++;
+        this.ensureRound(round);
+        this.lastRound = Math.max(this.lastRound, round);
+
+        int electionId = -1;
+
+        switch (kind){
+
+            case TraceRecorder.START:
+                this.started[round - 1]++;
+                electionId = receiver;
+                this.newElection(receiver, -1, round);
+                break;
+
+            case TraceRecorder.CRASH:
+                this.crashed[round - 1]++;
+                break;
+
+            default:
+                int type = MessageCreator.getMessageType(message);
+                this.delivered[round - 1][type < TYPES.length ? type : 0]++;
+
+                electionId = electionOf(message);
+                Election election = electionId >= 0 ? this.election(electionId, message, round) : null;
+                if (election != null){
+                    election.messages++;
+                    election.lastRound = round;
+
+                    if (type == MessageCreator.LEADER && election.leaderRound < 0){
+                        election.leaderRound = round;
+                        election.leaderId = MessageCreator.getLeaderIdFromLeaderMessage(message);
+                    }
+                }
+        }
+
+        boolean selected = (this.node >= 0 && (sender == this.node || receiver == this.node))
+                || (this.election >= 0 && electionId == this.election);
+
+        if (selected){
+            this.print(round, kind, sender, receiver, message);
+        }
+    }
+
+    // The initiator of ELECT and LEADER messages, the candidate of the other election messages, -1 for FAIL, WAKE and HEARTBEAT
+    private static int electionOf(long message){
+
+        switch (MessageCreator.getMessageType(message)){
+
+            case MessageCreator.ELECTION:
+                return MessageCreator.getInitializerIdFromElectMessage(message);
+
+            case MessageCreator.LEADER:
+                return MessageCreator.getInitializerIdFromLeaderMessage(message);
+
+            case MessageCreator.FAIL:
+            case MessageCreator.WAKE:
+            case MessageCreator.HEARTBEAT:
+                return -1;
+
+            default:
+                return MessageCreator.getCandidateId(message);
+        }
+    }
+
+    // The election a message belongs to, null for an ELECT of an election that was started over since
+    private Election election(int id, long message, int round){
+
+        // Only ELECT messages carry the epoch of their election whatever the algorithm
+        int epoch = MessageCreator.getMessageType(message) == MessageCreator.ELECTION ? MessageCreator.getEpoch(message) : -1;
+
+        Election election = this.openElections.get(id);
+        if (election == null){
+            return this.newElection(id, epoch, round);
+        }
+
+        if (epoch < 0){
+            return election;
+        }
+
+        if (election.epoch < 0){
+            election.epoch = epoch;
+            return election;
+        }
+
+        int age = (epoch - election.epoch) & 7;
+        if (age == 0){
+            return election;
+        }
+
+        return age <= 4 ? this.newElection(id, epoch, round) : null;
+    }
+
+    // Closes the last election of the id
+    private Election newElection(int id, int epoch, int round){
+
+        Election election = new Election(id, epoch, round);
+        this.elections.add(election);
+        this.openElections.put(id, election);
+
+        return election;
+    }
+
+    private void print(int round, int kind, int sender, int receiver, long message){
+
+        switch (kind){
+
+            case TraceRecorder.START:
+                this.out.println(String.format("round %d: node %d starts an election", round, receiver));
+                break;
+
+            case TraceRecorder.CRASH:
+                this.out.println(String.format("round %d: node %d FAILED", round, receiver));
+                break;
+
+            default:
+                this.out.println(String.format("round %d: %d -> %d %s", round, sender, receiver, MessageCreator.toString(message)));
+        }
+    }
+
+    private void printRounds(){
+
+        StringBuilder header = new StringBuilder(String.format("%8s", "round"));
+        for (int t=1; t<TYPES.length; t++){
+            header.append(String.format(" %9s", TYPES[t]));
+        }
+        header.append(String.format(" %8s %8s %8s", "started", "failed", "open"));
+        this.out.println(header);
+
+        // Elections are open from their first round until their leader is announced
+        int[] opened = new int[this.lastRound + 2];
+        for (Election election : this.elections){
+            opened[election.firstRound]++;
+            if (election.leaderRound >= 0){
+                opened[election.leaderRound + 1]--;
+            }
+        }
+
+        int failed = 0;
+        int open = 0;
+        for (int r=1; r<=this.lastRound; r++){
+
+            failed += this.crashed[r - 1];
+            open += opened[r];
+
+            StringBuilder line = new StringBuilder(String.format("%8d", r));
+            for (int t=1; t<TYPES.length; t++){
+                line.append(String.format(" %9d", this.delivered[r - 1][t]));
+            }
+            line.append(String.format(" %8d %8d %8d", this.started[r - 1], failed, open));
+            this.out.println(line);
+        }
+    }
+
+    private void printTimeline(){
+
+        this.out.println(String.format("%10s %10s %10s %10s %10s %12s", "election", "started", "leader", "announced", "last", "messages"));
+
+        ArrayList<Election> sorted = new ArrayList<>(this.elections);
+        sorted.sort(Comparator.comparingInt((Election election) -> election.id).thenComparingInt(election -> election.firstRound));
+
+        for (Election election : sorted){
+
+            if (this.election >= 0 && election.id != this.election){
+                continue;
+            }
+
+            this.out.println(String.format("%10d %10d %10s %10s %10d %12d", election.id, election.firstRound,
+                    election.leaderId < 0 ? "-" : String.valueOf(election.leaderId),
+                    election.leaderRound < 0 ? "-" : String.valueOf(election.leaderRound),
+                    election.lastRound, election.messages));
+        }
+    }
+
+    private void ensureRound(int round){
+
+        if (round > this.started.length){
+            int capacity = Math.max(round, this.started.length * 2);
+            this.delivered = Arrays.copyOf(this.delivered, capacity);
+            for (int r=0; r<capacity; r++){
+                if (this.delivered[r] == null){
+                    this.delivered[r] = new int[TYPES.length];
+                }
+            }
+            this.started = Arrays.copyOf(this.started, capacity);
+            this.crashed = Arrays.copyOf(this.crashed, capacity);
+        }
+    }
+
+    // One election, from its START record or the first record that mentions it
+    private static class Election {
+
+        private final int id;
+        private final int firstRound;
+        private int lastRound;
+        private int leaderRound = -1;
+        private int leaderId = -1;
+        private long messages;
+
+        // Of its ELECT messages, -1 until one is seen
+        private int epoch;
+
+        private Election(int id, int epoch, int firstRound){
+            this.id = id;
+            this.epoch = epoch;
+            this.firstRound = firstRound;
+            this.lastRound = firstRound;
+        }
+    }
+
+    public static void main(String args[]) throws IOException {
+
+        TraceReplay replay = new TraceReplay();
+
+        for (int i=1; i<args.length; i++){
+
+            String[] parts = args[i].split("=", 2);
+            if (parts.length != 2 || !parts[0].startsWith("--")){
+                throw new IllegalArgumentException("Expected --name=value but got " + args[i]);
+            }
+
+            switch (parts[0]){
+
+                case "--node":
+                    replay.node = Integer.parseInt(parts[1]);
+                    break;
+
+                case "--election":
+                    replay.election = Integer.parseInt(parts[1]);
+                    break;
+
+                case "--rounds":
+                    replay.rounds = Boolean.parseBoolean(parts[1]);
+                    break;
+
+                default:
+                    throw new IllegalArgumentException("Unknown option " + parts[0]);
+            }
+        }
+
+        long startTime = System.nanoTime();
+        replay.replay(args[0]);
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+
+        System.out.println(String.format("%d records in %.3f s (%.1f M records/s)", replay.records, seconds, replay.records / seconds / 1e6));
+    }
+}
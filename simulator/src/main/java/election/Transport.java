@@ -0,0 +1,49 @@
+package election;
+
+import java.io.IOException;
+
+/*
+How the network hands the messages of a round to their receivers. The network only runs the nodes of one range of
+indexes, the nodes of this process; the other nodes are replicas that only tell where a message goes and whether
+the node failed. The in-process network uses LocalTransport, whose range is every node, and which puts the messages
+straight into the mailboxes. An out-of-process worker uses SocketTransport, which ships the messages for other
+workers' nodes to them and hands its own nodes everything they got once the round is flushed.
+
+Either way every receiver gets its messages of a round in the order of their senders' indexes, so a run does not
+depend on how the nodes are split.
+*/
+public interface Transport {
+
+    // Where a transport puts the messages for the nodes of this process, i.e. the network's own delivery into their
+    // mailboxes. Returns false if the messages were dropped, in which case they are no longer counted anywhere.
+    interface Mailboxes {
+
+        boolean put(Node receiver, LongQueue messages, int from, int count);
+    }
+
+    // First node index of this process
+    int getFrom();
+
+    // One past the last node index of this process
+    int getTo();
+
+    default boolean isLocal(Node node){
+        return node.getIndex() >= this.getFrom() && node.getIndex() < this.getTo();
+    }
+
+    // Hands count messages, starting at position from, to an active receiver. Messages for the nodes of this process
+    // go to the mailboxes, right away or when the round is flushed. Returns false if they were dropped.
+    boolean deliver(Node receiver, LongQueue messages, int from, int count, Mailboxes mailboxes);
+
+    // Called once every message of the round has been handed over
+    default void flush(Mailboxes mailboxes) throws IOException {
+    }
+
+    // Whether deliver may be called by several threads at once, for the receivers of different shards
+    default boolean isConcurrent(){
+        return true;
+    }
+
+    default void close() throws IOException {
+    }
+}
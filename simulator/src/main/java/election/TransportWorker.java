@@ -0,0 +1,151 @@
+package election;
+
+import java.io.*;
+import java.net.*;
+import java.nio.channels.SocketChannel;
+import java.util.*;
+
+/*
+One worker process of an out-of-process run, started by the Coordinator. It parses the whole input file and runs a
+Network over it with a SocketTransport, so only the nodes of its own range of indexes run here; the other nodes are
+replicas that only tell where a message goes and whether the node failed. The network runs its nodes the way the
+options say (threads, lazy, heartbeats, metrics, trace), and the worker only keeps it in step with the coordinator:
+
+- the coordinator starts every round, with the nodes that fail in it and the nodes that another worker's heartbeats
+  found to have failed
+- the network runs the round: every worker closes the ring over a failed node and tells its own neighbours, starts
+  the elections of its own nodes, collects their messages and exchanges frames with the other workers before the
+  nodes handle what they got
+- the worker reports the messages its network still counts, the messages and heartbeats delivered, the new leaders
+  and the nodes its detectors suspected
+
+Usage (started by the coordinator): java TransportWorker <coordinator port> <worker> <workers> <input file> [options]
+*/
+public class TransportWorker {
+
+    private final int worker;
+
+    private final Node[] nodes;
+
+    private final SocketTransport transport;
+
+    private final Network network;
+
+    // Leaders elected in the current round
+    private final LongQueue leaders = new LongQueue();
+
+    public TransportWorker(Topology topology, NetworkSettings settings, int worker, int workers){
+
+        this.worker = worker;
+        this.nodes = topology.getNodes();
+        this.transport = new SocketTransport(worker, workers, topology);
+        this.network = new Network(topology, settings, Logger.getInstance(), this.transport);
+        this.network.setLeaderListener(this::leaderElected);
+    }
+
+    // Called by the threads of the nodes
+    private synchronized void leaderElected(int id){
+        this.leaders.add(id);
+    }
+
+    public void run(int coordinatorPort) throws IOException {
+
+        try (SocketChannel control = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), coordinatorPort))) {
+
+            control.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+            Coordinator.send(control, this.worker, this.transport.listen());
+
+            long[] ports = Coordinator.receive(control);
+            int[] peerPorts = new int[ports.length];
+            for (int i=0; i<ports.length; i++){
+                peerPorts[i] = (int) ports[i];
+            }
+            this.transport.connect(peerPorts);
+
+            this.network.startNodes();
+
+            while (true){
+
+                long[] command = Coordinator.receive(control);
+                if (command[0] == 0){
+                    break;
+                }
+
+                Coordinator.send(control, this.runRound(command));
+            }
+
+            Coordinator.send(control, this.transport.getBytesSent(), this.transport.getFramesSent());
+        } finally {
+            this.network.stopNetwork();
+            this.transport.close();
+        }
+    }
+
+    // Runs the round the command starts, and returns what to report
+    private long[] runRound(long[] command){
+
+        int round = (int) command[0];
+        int failures = (int) command[1];
+
+        ArrayList<Node> failing = new ArrayList<>();
+        for (int i=0; i<failures; i++){
+            Node node = this.nodes[(int) command[2 + 2 * i]];
+
+            // The replica of a node of another worker does not know whether it was a leader
+            if (command[3 + 2 * i] == 1){
+                node.setNodeLeader(true);
+            }
+
+            failing.add(node);
+        }
+
+        int closedAt = 2 + 2 * failures;
+        ArrayList<Node> closed = new ArrayList<>();
+        for (int i=0; i<command[closedAt]; i++){
+            closed.add(this.nodes[(int) command[closedAt + 1 + i]]);
+        }
+
+        int delivered = this.network.getMessagesDelivered();
+        HeartbeatStats heartbeats = this.network.getHeartbeatStats();
+        long heartbeatsDelivered = heartbeats == null ? 0 : heartbeats.getHeartbeats();
+
+        this.leaders.clear();
+        this.transport.setRound(round);
+        this.network.runRound(round, failing, closed);
+
+        List<Node> suspected = this.network.takeSuspected();
+
+        long[] done = new long[5 + this.leaders.size() + suspected.size()];
+        done[0] = this.network.getPendingMessages();
+        done[1] = this.network.getMessagesDelivered() - delivered;
+        done[2] = heartbeats == null ? 0 : heartbeats.getHeartbeats() - heartbeatsDelivered;
+
+        done[3] = this.leaders.size();
+        for (int i=0; i<this.leaders.size(); i++){
+            done[4 + i] = this.leaders.get(i);
+        }
+
+        int suspectedAt = 4 + this.leaders.size();
+        done[suspectedAt] = suspected.size();
+        for (int i=0; i<suspected.size(); i++){
+            done[suspectedAt + 1 + i] = suspected.get(i).getIndex();
+        }
+
+        return done;
+    }
+
+    public static void main(String args[]) throws IOException {
+
+        int coordinatorPort = Integer.parseInt(args[0]);
+        int worker = Integer.parseInt(args[1]);
+        int workers = Integer.parseInt(args[2]);
+
+        NetworkSettings settings = NetworkSettings.fromArgs(args, 4);
+
+        // The output of a worker is discarded, only its log file and the coordinator's report matter
+        settings.setConsoleEcho(false);
+
+        new TransportWorker(MappedTopologyParser.parse(args[3]), settings, worker, workers).run(coordinatorPort);
+    }
+}
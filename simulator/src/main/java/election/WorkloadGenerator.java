@@ -0,0 +1,582 @@
+package election;
+
+import java.io.*;
+import java.util.*;
+
+/*
+Writes input files in the format both parsers read, for rings and graphs far larger than the hand-written inputs.
+The lines give the ring order, so the node at position i of the ring is on line i, followed by its neighbours.
+
+Ids (--order):
+- sorted: 1..n along the ring direction
+- reverse: n..1 along the ring direction
+- random: a shuffled ring
+
+Neighbours (--graph), always including the two ring links so that the ring is part of the graph:
+- ring: only the ring links
+- regular: the ring links plus degree - 2 random perfect matchings, so every node has degree neighbours, minus the
+  rare duplicate pairs, which are dropped
+- small-world: Watts-Strogatz, a ring lattice where every node is linked to the degree / 2 nearest nodes on each
+  side, and every link other than the ring links is moved to a random node with probability --rewire
+
+Schedule:
+- --initiators=K nodes picked at random start elections, spread over rounds 1 to --elect-rounds
+- --kill-leader=true fails the largest id, which every algorithm elects, once the network is quiet
+- --failures=K other random nodes fail one by one, whenever the network is quiet (FAIL lines)
+- --crashes=K random nodes fail together in round --crash-round (a CRASH line)
+
+The same options and --seed always give the same file, and build() gives the same workload as an in-memory topology.
+Edges are kept in primitive arrays and the file is written through one byte buffer, so 10M-edge files take seconds.
+
+Usage: java WorkloadGenerator <output file> [--nodes=N --order=... --graph=... --degree=D --rewire=P --initiators=K
+       --elect-rounds=R --kill-leader=true --failures=K --crashes=K --crash-round=R --seed=S]
+*/
+public class WorkloadGenerator {
+
+    private int nodes = 1000;
+
+    private String order = "random";
+
+    private String graph = "ring";
+
+    private int degree = 4;
+
+    private double rewire = 0.1;
+
+    private int initiators = 1;
+
+    private int electRounds = 1;
+
+    private boolean killLeader = false;
+
+    private int failures = 0;
+
+    private int crashes = 0;
+
+    private int crashRound = 1;
+
+    private long seed = 1;
+
+    // Ids at each ring position
+    private int[] ids;
+
+    // Edges as pairs of ring positions, each one listed once
+    private int[] edgeFrom;
+    private int[] edgeTo;
+    private int edgeCount;
+
+    // Ring positions picked for the schedule
+    private int[] initiatorPositions;
+    private int scheduleRounds;
+    private int[] failurePositions;
+    private int[] crashPositions;
+
+    private SplittableRandom random;
+
+    public void setNodes(int nodes) {
+        this.nodes = nodes;
+    }
+
+    public void setOrder(String order) {
+        this.order = order;
+    }
+
+    public void setGraph(String graph) {
+        this.graph = graph;
+    }
+
+    public void setDegree(int degree) {
+        this.degree = degree;
+    }
+
+    public void setRewire(double rewire) {
+        this.rewire = rewire;
+    }
+
+    public void setInitiators(int initiators) {
+        this.initiators = initiators;
+    }
+
+    public void setElectRounds(int electRounds) {
+        this.electRounds = electRounds;
+    }
+
+    public void setKillLeader(boolean killLeader) {
+        this.killLeader = killLeader;
+    }
+
+    public void setFailures(int failures) {
+        this.failures = failures;
+    }
+
+    public void setCrashes(int crashes) {
+        this.crashes = crashes;
+    }
+
+    public void setCrashRound(int crashRound) {
+        this.crashRound = crashRound;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    // Generates the workload and writes it. Returns the number of neighbour entries written.
+    public long write(String fileName) throws IOException {
+
+        int[][] adjacency = this.generate();
+        int[] offsets = adjacency[0];
+        int[] targets = adjacency[1];
+
+        long entries = 0;
+        try (Output out = new Output(fileName)) {
+
+            out.write("Node_id Neighbours\n");
+
+            for (int i=0; i<this.nodes; i++){
+                out.write(this.ids[i]);
+
+                int previous = -1;
+                for (int e=offsets[i]; e<offsets[i + 1]; e++){
+                    if (targets[e] != previous){
+                        out.write(' ');
+                        out.write(this.ids[targets[e]]);
+                        entries++;
+                    }
+                    previous = targets[e];
+                }
+
+                out.write('\n');
+            }
+
+            this.writeSchedule(out);
+        }
+
+        return entries;
+    }
+
+    // Generates the same workload as write, straight into a topology, e.g. for a sweep that does not need the files
+    public Topology build(){
+
+        int[][] adjacency = this.generate();
+        int[] offsets = adjacency[0];
+        int[] targets = adjacency[1];
+
+        Topology topology = new Topology();
+        Node[] nodes = new Node[this.nodes];
+        for (int i=0; i<this.nodes; i++){
+            nodes[i] = topology.addOrGetNodeWithId(this.ids[i]);
+        }
+
+        for (int i=0; i<this.nodes; i++){
+            nodes[i].setNextNode(nodes[(i + 1) % this.nodes]);
+            nodes[i].setPreviousNode(nodes[(i + this.nodes - 1) % this.nodes]);
+
+            int previous = -1;
+            for (int e=offsets[i]; e<offsets[i + 1]; e++){
+                if (targets[e] != previous){
+                    topology.addNeighbour(nodes[i], nodes[targets[e]]);
+                }
+                previous = targets[e];
+            }
+        }
+
+        for (int r=0; r<this.scheduleRounds; r++){
+
+            int from = (int) ((long) this.initiatorPositions.length * r / this.scheduleRounds);
+            int to = (int) ((long) this.initiatorPositions.length * (r + 1) / this.scheduleRounds);
+            if (from == to){
+                continue;
+            }
+
+            Action elect = new Action(MessageCreator.ELECTION_TAG);
+            for (int k=from; k<to; k++){
+                elect.addNode(nodes[this.initiatorPositions[k]]);
+            }
+            topology.addAction(r + 1, elect);
+        }
+
+        if (this.killLeader){
+            topology.addFailure(topology.getNodeWithId(this.nodes));
+        }
+
+        for (int position : this.failurePositions){
+            topology.addFailure(nodes[position]);
+        }
+
+        if (this.crashPositions.length > 0){
+            Action crash = new Action(MessageCreator.FAIL_TAG);
+            for (int position : this.crashPositions){
+                crash.addNode(nodes[position]);
+            }
+            topology.addAction(this.crashRound, crash);
+        }
+
+        topology.compact();
+
+        return topology;
+    }
+
+    // Places the ids, builds the edges and picks the schedule. Returns the CSR adjacency by ring position.
+    private int[][] generate(){
+
+        if (this.nodes < 2){
+            throw new IllegalArgumentException("A ring needs at least 2 nodes");
+        }
+        if (this.nodes > MessageCreator.MAX_ID){
+            throw new IllegalArgumentException("Node ids must not be larger than " + MessageCreator.MAX_ID);
+        }
+
+        this.random = new SplittableRandom(this.seed);
+        this.edgeCount = 0;
+        this.edgeFrom = new int[16];
+        this.edgeTo = new int[16];
+
+        this.placeIds();
+        this.buildEdges();
+
+        int[][] adjacency = this.adjacency();
+
+        this.planSchedule();
+
+        return adjacency;
+    }
+
+    private void placeIds(){
+
+        this.ids = new int[this.nodes];
+        for (int i=0; i<this.nodes; i++){
+            this.ids[i] = this.order.equals("reverse") ? this.nodes - i : i + 1;
+        }
+
+        if (this.order.equals("random")){
+            this.shuffle(this.ids);
+        }else if (!this.order.equals("sorted") && !this.order.equals("reverse")){
+            throw new IllegalArgumentException("Unknown order " + this.order);
+        }
+    }
+
+    private void buildEdges(){
+
+        // The ring links
+        for (int i=0; i<this.nodes; i++){
+            this.addEdge(i, (i + 1) % this.nodes);
+        }
+
+        switch (this.graph){
+
+            case "ring":
+                break;
+
+            case "regular":
+                int[] positions = new int[this.nodes];
+                for (int m=2; m<this.degree; m++){
+                    for (int i=0; i<this.nodes; i++){
+                        positions[i] = i;
+                    }
+                    this.shuffle(positions);
+
+                    // With an odd number of nodes, the last one sits this matching out
+                    for (int i=0; i + 1<this.nodes; i+=2){
+                        if (positions[i] != positions[i + 1]){
+                            this.addEdge(positions[i], positions[i + 1]);
+                        }
+                    }
+                }
+                break;
+
+            case "small-world":
+                for (int distance=2; distance<=this.degree / 2; distance++){
+                    for (int i=0; i<this.nodes; i++){
+
+                        int target = (i + distance) % this.nodes;
+                        if (this.random.nextDouble() < this.rewire){
+                            target = this.random.nextInt(this.nodes);
+                        }
+
+                        if (target != i){
+                            this.addEdge(i, target);
+                        }
+                    }
+                }
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unknown graph " + this.graph);
+        }
+    }
+
+    // CSR arrays of both directions of every edge, with each node's neighbours sorted so that duplicates are adjacent
+    private int[][] adjacency(){
+
+        int[] offsets = new int[this.nodes + 1];
+        for (int e=0; e<this.edgeCount; e++){
+            offsets[this.edgeFrom[e] + 1]++;
+            offsets[this.edgeTo[e] + 1]++;
+        }
+        for (int i=0; i<this.nodes; i++){
+            offsets[i + 1] += offsets[i];
+        }
+
+        int[] fill = Arrays.copyOf(offsets, this.nodes);
+        int[] targets = new int[2 * this.edgeCount];
+        for (int e=0; e<this.edgeCount; e++){
+            targets[fill[this.edgeFrom[e]]++] = this.edgeTo[e];
+            targets[fill[this.edgeTo[e]]++] = this.edgeFrom[e];
+        }
+
+        // The edge lists are not needed anymore, and they are as large as the result
+        this.edgeFrom = null;
+        this.edgeTo = null;
+
+        for (int i=0; i<this.nodes; i++){
+            Arrays.sort(targets, offsets[i], offsets[i + 1]);
+        }
+
+        return new int[][] {offsets, targets};
+    }
+
+    private void planSchedule(){
+
+        this.initiatorPositions = this.pick(Math.min(this.initiators, this.nodes));
+
+        // Initiators are spread evenly over the election rounds
+        this.scheduleRounds = Math.max(1, Math.min(this.electRounds, this.initiatorPositions.length));
+
+        // Failures and crashes never pick the largest id, so that --kill-leader alone decides what happens to it
+        this.failurePositions = this.pickExcept(this.failures, this.nodes);
+        this.crashPositions = this.pickExcept(this.crashes, this.nodes);
+    }
+
+    // One ELECT line per election round, then the FAIL lines and the CRASH line
+    private void writeSchedule(Output out) throws IOException {
+
+        for (int r=0; r<this.scheduleRounds; r++){
+
+            int from = (int) ((long) this.initiatorPositions.length * r / this.scheduleRounds);
+            int to = (int) ((long) this.initiatorPositions.length * (r + 1) / this.scheduleRounds);
+            if (from == to){
+                continue;
+            }
+
+            out.write(MessageCreator.ELECTION_TAG);
+            out.write(' ');
+            out.write(r + 1);
+            for (int k=from; k<to; k++){
+                out.write(' ');
+                out.write(this.ids[this.initiatorPositions[k]]);
+            }
+            out.write('\n');
+        }
+
+        if (this.killLeader){
+            out.write(MessageCreator.FAIL_TAG);
+            out.write(' ');
+            out.write(this.nodes);
+            out.write('\n');
+        }
+
+        for (int position : this.failurePositions){
+            out.write(MessageCreator.FAIL_TAG);
+            out.write(' ');
+            out.write(this.ids[position]);
+            out.write('\n');
+        }
+
+        if (this.crashPositions.length > 0){
+            out.write(MessageCreator.CRASH_TAG);
+            out.write(' ');
+            out.write(this.crashRound);
+            for (int position : this.crashPositions){
+                out.write(' ');
+                out.write(this.ids[position]);
+            }
+            out.write('\n');
+        }
+    }
+
+    // Distinct random ring positions, in random order
+    private int[] pick(int count){
+
+        // A partial Fisher-Yates shuffle over a map, so that picking a few nodes of a huge ring stays cheap
+        HashMap<Integer, Integer> swapped = new HashMap<>();
+        int[] picked = new int[count];
+
+        for (int k=0; k<count; k++){
+            int j = k + this.random.nextInt(this.nodes - k);
+            int atJ = swapped.getOrDefault(j, j);
+            swapped.put(j, swapped.getOrDefault(k, k));
+            picked[k] = atJ;
+        }
+
+        return picked;
+    }
+
+    private int[] pickExcept(int count, int id){
+
+        int[] picked = this.pick(Math.min(count + 1, this.nodes));
+
+        int[] result = new int[Math.min(count, this.nodes - 1)];
+        int n = 0;
+        for (int position : picked){
+            if (this.ids[position] != id && n < result.length){
+                result[n++] = position;
+            }
+        }
+
+        return result;
+    }
+
+    private void shuffle(int[] values){
+        for (int i=values.length - 1; i>0; i--){
+            int j = this.random.nextInt(i + 1);
+            int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+    }
+
+    private void addEdge(int from, int to){
+
+        if (this.edgeCount == this.edgeFrom.length){
+            this.edgeFrom = Arrays.copyOf(this.edgeFrom, this.edgeCount * 2);
+            this.edgeTo = Arrays.copyOf(this.edgeTo, this.edgeCount * 2);
+        }
+
+        this.edgeFrom[this.edgeCount] = from;
+        this.edgeTo[this.edgeCount] = to;
+        this.edgeCount++;
+    }
+
+    // Buffered ASCII output that formats numbers without building strings
+    private static class Output implements Closeable {
+
+        private final OutputStream stream;
+
+        private final byte[] buffer = new byte[1 << 16];
+
+        private int position;
+
+        private Output(String fileName) throws IOException {
+            this.stream = new FileOutputStream(fileName);
+        }
+
+        private void write(char c) throws IOException {
+
+            if (this.position == this.buffer.length){
+                this.flush();
+            }
+
+            this.buffer[this.position++] = (byte) c;
+        }
+
+        private void write(String text) throws IOException {
+            for (int i=0; i<text.length(); i++){
+                this.write(text.charAt(i));
+            }
+        }
+
+        private void write(int value) throws IOException {
+
+            if (this.position + 11 > this.buffer.length){
+                this.flush();
+            }
+
+            int start = this.position;
+            do {
+                this.buffer[this.position++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value > 0);
+
+            // The digits were written backwards
+            for (int i=start, j=this.position - 1; i<j; i++, j--){
+                byte swap = this.buffer[i];
+                this.buffer[i] = this.buffer[j];
+                this.buffer[j] = swap;
+            }
+        }
+
+        private void flush() throws IOException {
+            this.stream.write(this.buffer, 0, this.position);
+            this.position = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.flush();
+            this.stream.close();
+        }
+    }
+
+    public static void main(String args[]) throws IOException {
+
+        WorkloadGenerator generator = new WorkloadGenerator();
+
+        for (int i=1; i<args.length; i++){
+
+            String[] parts = args[i].split("=", 2);
+            if (parts.length != 2 || !parts[0].startsWith("--")){
+                throw new IllegalArgumentException("Expected --name=value but got " + args[i]);
+            }
+
+            switch (parts[0]){
+                case "--nodes":
+                    generator.setNodes(Integer.parseInt(parts[1]));
+                    break;
+
+                case "--order":
+                    generator.setOrder(parts[1]);
+                    break;
+
+                case "--graph":
+                    generator.setGraph(parts[1]);
+                    break;
+
+                case "--degree":
+                    generator.setDegree(Integer.parseInt(parts[1]));
+                    break;
+
+                case "--rewire":
+                    generator.setRewire(Double.parseDouble(parts[1]));
+                    break;
+
+                case "--initiators":
+                    generator.setInitiators(Integer.parseInt(parts[1]));
+                    break;
+
+                case "--elect-rounds":
+                    generator.setElectRounds(Integer.parseInt(parts[1]));
+                    break;
+
+                case "--kill-leader":
+                    generator.setKillLeader(Boolean.parseBoolean(parts[1]));
+                    break;
+
+                case "--failures":
+                    generator.setFailures(Integer.parseInt(parts[1]));
+                    break;
+
+                case "--crashes":
+                    generator.setCrashes(Integer.parseInt(parts[1]));
+                    break;
+
+                case "--crash-round":
+                    generator.setCrashRound(Integer.parseInt(parts[1]));
+                    break;
+
+                case "--seed":
+                    generator.setSeed(Long.parseLong(parts[1]));
+                    break;
+
+                default:
+                    throw new IllegalArgumentException("Unknown option " + parts[0]);
+            }
+        }
+
+        long startTime = System.nanoTime();
+        long entries = generator.write(args[0]);
+
+        System.out.println(String.format("%s: %d neighbour entries, %.1f MB in %.3f s",
+                args[0], entries, new File(args[0]).length() / 1e6, (System.nanoTime() - startTime) / 1e9));
+    }
+}
@@ -0,0 +1,63 @@
+package election;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// A checkpoint can only be resumed with the options that decide what the state of its nodes looks like
+public class CheckpointTest {
+
+    @TempDir
+    Path directory;
+
+    private static NetworkSettings settings(int heartbeatPeriod){
+
+        NetworkSettings settings = new NetworkSettings();
+        settings.setLogLevel(Logger.Level.INFO);
+        settings.setConsoleEcho(false);
+        settings.setHeartbeatPeriod(heartbeatPeriod);
+
+        return settings;
+    }
+
+    private String checkpoint(){
+
+        String file = this.directory.resolve("checkpoint.bin").toString();
+
+        NetworkSettings settings = settings(2);
+        settings.setCheckpointFile(file);
+        settings.setCheckpointEvery(10);
+
+        new Network(FailoverComparison.ring(new int[] {5, 3, 8, 1, 7, 2, 6, 4}), settings).run();
+
+        return file;
+    }
+
+    @Test
+    public void otherOptionsAreRefusedBeforeAnyStateIsRead() throws IOException {
+
+        Checkpoint checkpoint = Checkpoint.read(this.checkpoint());
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> new Network(checkpoint, settings(0)));
+        assertTrue(ex.getMessage().contains("other options"), ex.getMessage());
+        assertTrue(ex.getMessage().contains("--heartbeat"), ex.getMessage());
+
+        NetworkSettings segmented = settings(2);
+        segmented.setSegments(2);
+        ex = assertThrows(IllegalArgumentException.class, () -> new Network(checkpoint, segmented));
+        assertTrue(ex.getMessage().contains("--segments"), ex.getMessage());
+    }
+
+    @Test
+    public void theSameOptionsResume() throws IOException {
+
+        Network network = new Network(Checkpoint.read(this.checkpoint()), settings(2));
+        network.run();
+
+        assertEquals(8, network.getLeader().getNodeId());
+    }
+}
@@ -0,0 +1,60 @@
+package election;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+// A detector acts on its own suspicions: nothing tells it whether the neighbour really crashed
+public class HeartbeatDetectorTest {
+
+    @Test
+    public void aSilentNeighbourIsSuspectedOnceAfterTheTimeout(){
+
+        Topology topology = FailoverComparison.ring(new int[] {1, 2, 3, 4});
+
+        NetworkSettings settings = new NetworkSettings();
+        settings.setLogLevel(Logger.Level.INFO);
+        settings.setConsoleEcho(false);
+
+        // Only gives the nodes their logger, nothing crashes
+        new Network(topology, settings);
+
+        List<Node> suspected = new ArrayList<>();
+        HeartbeatDetector detector = new HeartbeatDetector(topology, 2, 4, suspected::add);
+
+        Node node = topology.getNodeWithId(1);
+        Node talking = topology.getNodeWithId(2);
+        Node silent = topology.getNodeWithId(4);
+
+        for (int round=1; round<=4; round++){
+            detector.tick(node, round);
+            detector.heard(talking.getIndex());
+        }
+
+        assertTrue(suspected.isEmpty());
+
+        for (int round=5; round<=8; round++){
+            detector.tick(node, round);
+            detector.heard(talking.getIndex());
+        }
+
+        assertEquals(List.of(silent), suspected);
+    }
+
+    @Test
+    public void heartbeatsAreRefusedWithTimedRounds(){
+
+        NetworkSettings settings = new NetworkSettings();
+        settings.setLogLevel(Logger.Level.INFO);
+        settings.setConsoleEcho(false);
+        settings.setRoundMode(RoundMode.SLEEP);
+        settings.setHeartbeatPeriod(2);
+
+        Topology topology = FailoverComparison.ring(new int[] {1, 2, 3});
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> new Network(topology, settings));
+        assertTrue(ex.getMessage().contains("--rounds=logical"));
+    }
+}
@@ -0,0 +1,53 @@
+package election;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Every election gets its own row, also when its initiator starts another one later
+public class MetricsTest {
+
+    // The topology and schedule of input.txt: node 18 starts an election in round 5 and another one in round 50
+    static final String INPUT = "Node_id Neighbours\n15 1 16\n1 15 18 12 3\n3 1 20 6 12\n20 3 12 16\n12 20 6 3 1 18\n"
+            + "6 12 7 3 16\n7 6 18 16\n18 7 16 12 1\n16 18 15 7 6 20\nELECT 5 18 7\nELECT 8 3\nELECT 15 12 1\nELECT 50 18\n"
+            + "FAIL 20\nFAIL 6\nFAIL 3\n";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void repeatedElectionsOfOneInitiatorAreCountedApart() throws IOException {
+
+        Path input = this.directory.resolve("input.txt");
+        Files.writeString(input, INPUT);
+
+        NetworkSettings settings = new NetworkSettings();
+        settings.setLogLevel(Logger.Level.INFO);
+        settings.setConsoleEcho(false);
+        settings.setMetricsFile(this.directory.resolve("metrics.csv").toString());
+
+        // Runs the whole simulation
+        new Network(input.toString(), settings);
+
+        List<String[]> rows = new ArrayList<>();
+        for (String line : Files.readAllLines(this.directory.resolve("metrics-elections.csv"))){
+            String[] fields = line.split(",");
+            if (fields[0].equals("18")){
+                rows.add(fields);
+            }
+        }
+
+        assertEquals(2, rows.size());
+        assertEquals("5", rows.get(0)[1]);
+        assertEquals("50", rows.get(1)[1]);
+
+        // The LEADER message of the second one did not close the first one
+        assertEquals("-1", rows.get(0)[2]);
+        assertEquals("20", rows.get(1)[3]);
+    }
+}
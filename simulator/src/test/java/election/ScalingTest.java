@@ -0,0 +1,55 @@
+package election;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+// The scaling runs of ScalingBenchmark, cut down to sizes that fit in the build
+public class ScalingTest {
+
+    private static Network elect(int size, ExecutionMode mode){
+
+        WorkloadGenerator generator = new WorkloadGenerator();
+        generator.setNodes(size);
+        generator.setOrder("sorted");
+
+        NetworkSettings settings = new NetworkSettings();
+        settings.setExecutionMode(mode);
+        settings.setLogLevel(Logger.Level.INFO);
+        settings.setConsoleEcho(false);
+
+        Network network = new Network(generator.build(), settings);
+        network.run();
+
+        return network;
+    }
+
+    @Test
+    public void lazyModeElectsTheLargestIdOnATenThousandNodeRing(){
+
+        Network network = elect(10000, ExecutionMode.LAZY);
+
+        assertNotNull(network.getLeader());
+        assertEquals(10000, network.getLeader().getNodeId());
+    }
+
+    @Test
+    public void platformThreadsElectTheLargestIdOnAThousandNodeRing(){
+
+        Network network = elect(1000, ExecutionMode.PLATFORM);
+
+        assertNotNull(network.getLeader());
+        assertEquals(1000, network.getLeader().getNodeId());
+    }
+
+    @Test
+    public void virtualThreadsRunOrFailFast(){
+
+        if (ExecutionMode.hasVirtualThreads()){
+            assertEquals(10000, elect(10000, ExecutionMode.VIRTUAL).getLeader().getNodeId());
+        }else{
+            IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> elect(10, ExecutionMode.VIRTUAL));
+            assertTrue(ex.getMessage().contains("Java 21"));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package election;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Node ids have to fit in the 28 bits a packed message has for them, whichever way the topology is built
+public class TopologyParserTest {
+
+    @TempDir
+    Path directory;
+
+    private String write(String text) throws IOException {
+
+        Path file = this.directory.resolve("input.txt");
+        Files.writeString(file, text);
+
+        return file.toString();
+    }
+
+    @Test
+    public void bothParsersRejectAnIdAboveMaxId() throws IOException {
+
+        String file = this.write("Node_id Neighbours\n1 300000000\n300000000 1\nELECT 1 1\n");
+
+        IOException mapped = assertThrows(IOException.class, () -> MappedTopologyParser.parse(file));
+        assertTrue(mapped.getMessage().contains("300000000"), mapped.getMessage());
+
+        IOException plain = assertThrows(IOException.class, () -> TopologyParser.parse(file));
+        assertTrue(plain.getMessage().contains("300000000"), plain.getMessage());
+    }
+
+    @Test
+    public void bothParsersRejectAnIdAboveMaxIdInTheSchedule() throws IOException {
+
+        String file = this.write("Node_id Neighbours\n1 2\n2 1\nELECT 1 300000000\n");
+
+        assertThrows(IOException.class, () -> MappedTopologyParser.parse(file));
+        assertThrows(IOException.class, () -> TopologyParser.parse(file));
+    }
+
+    @Test
+    public void maxIdItselfIsElected() throws IOException {
+
+        String file = this.write("Node_id Neighbours\n1 " + MessageCreator.MAX_ID + "\n" + MessageCreator.MAX_ID + " 1\nELECT 1 1\n");
+
+        Topology topology = MappedTopologyParser.parse(file);
+        assertEquals(2, topology.size());
+
+        NetworkSettings settings = new NetworkSettings();
+        settings.setLogLevel(Logger.Level.INFO);
+        settings.setConsoleEcho(false);
+
+        DiscreteEventSimulator simulator = new DiscreteEventSimulator(topology, settings);
+        simulator.run();
+
+        assertEquals(MessageCreator.MAX_ID, simulator.getLeader().getNodeId());
+    }
+
+    @Test
+    public void programmaticTopologiesRejectAnIdAboveMaxId(){
+
+        Topology topology = new Topology();
+
+        assertThrows(IllegalArgumentException.class, () -> topology.addOrGetNodeWithId(MessageCreator.MAX_ID + 1));
+        assertThrows(IllegalArgumentException.class, () -> topology.addOrGetNodeWithId(-1));
+        assertEquals(MessageCreator.MAX_ID, topology.addOrGetNodeWithId(MessageCreator.MAX_ID).getNodeId());
+    }
+}
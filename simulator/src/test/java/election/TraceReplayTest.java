@@ -0,0 +1,57 @@
+package election;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// The timeline rebuilt from a trace has one row per election, also when its initiator starts another one later
+public class TraceReplayTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void repeatedElectionsOfOneInitiatorGetTheirOwnRows() throws IOException {
+
+        Path input = this.directory.resolve("input.txt");
+        Files.writeString(input, MetricsTest.INPUT);
+
+        String trace = this.directory.resolve("trace.bin").toString();
+
+        NetworkSettings settings = new NetworkSettings();
+        settings.setLogLevel(Logger.Level.INFO);
+        settings.setConsoleEcho(false);
+        settings.setTraceFile(trace);
+
+        // Runs the whole simulation
+        new Network(input.toString(), settings);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(output, true));
+        try {
+            new TraceReplay().replay(trace);
+        } finally {
+            System.setOut(console);
+        }
+
+        List<String[]> rows = new ArrayList<>();
+        for (String line : output.toString().split("\n")){
+            String[] fields = line.trim().split("\\s+");
+            if (fields[0].equals("18")){
+                rows.add(fields);
+            }
+        }
+
+        assertEquals(2, rows.size());
+        assertEquals("5", rows.get(0)[1]);
+        assertEquals("-", rows.get(0)[2]);
+        assertEquals("50", rows.get(1)[1]);
+        assertEquals("20", rows.get(1)[2]);
+    }
+}